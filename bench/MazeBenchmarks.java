@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+
+// Represents one operation being measured, prepared for a maze of a given size
+interface BenchmarkOp {
+  // EFFECT: Runs the operation once
+  void run();
+}
+
+// Represents a benchmark: how to prepare its operation for a maze size
+interface Benchmark {
+  // Returns the operation to measure on a freshly made world
+  BenchmarkOp prepare(MazeWorld w);
+}
+
+// Runs the paths we use at scale (generation, union-find, solving and scene
+// building) over a range of maze sizes. Each benchmark is warmed up, then
+// measured over several timed iterations; it reports operations per second,
+// and, like JMH's gc profiler, the allocation rate, bytes allocated per
+// operation and garbage collections.
+//
+// JMH itself needs benchmark classes in a named package, and those cannot see
+// the game's classes in the default package, so this harness follows the same
+// warmup and measurement scheme instead.
+//
+// Usage: MazeBenchmarks [--sizes 10,100,1000,4000] [--filter regex]
+//   [--warmup-ms 1000] [--iterations 5] [--iteration-ms 1000]
+class MazeBenchmarks {
+  int[] sizes = { 10, 100, 1000, 4000 };
+  String filter = ".*";
+  long warmupMillis = 1000;
+  int iterations = 5;
+  long iterationMillis = 1000;
+
+  /*-
+   * Fields:
+   * ... this.sizes ... -- int[]
+   * ... this.filter ... -- String
+   * ... this.warmupMillis ... -- long
+   * ... this.iterations ... -- int
+   * ... this.iterationMillis ... -- long
+   * Methods:
+   * ... this.parse(String[]) ... -- void
+   * ... this.runAll() ... -- void
+   * ... MazeBenchmarks.serialKruskal(MazeWorld, boolean) ... -- KruskalGenerator
+   * ... this.measure(String, int, Benchmark) ... -- void
+   * ... this.runFor(BenchmarkOp, long) ... -- long
+   * ... this.allocatedBytes() ... -- long
+   * ... this.gcCount() ... -- long
+   */
+
+  public static void main(String[] args) {
+    MazeBenchmarks b = new MazeBenchmarks();
+    b.parse(args);
+    b.runAll();
+  }
+
+  // EFFECT: Reads the options from the command line
+  void parse(String[] args) {
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      if (args[i].equals("--sizes")) {
+        String[] parts = value.split(",");
+        this.sizes = new int[parts.length];
+        for (int j = 0; j < parts.length; j++) {
+          this.sizes[j] = Integer.parseInt(parts[j].trim());
+        }
+      } else if (args[i].equals("--filter")) {
+        this.filter = value;
+      } else if (args[i].equals("--warmup-ms")) {
+        this.warmupMillis = Long.parseLong(value);
+      } else if (args[i].equals("--iterations")) {
+        this.iterations = Integer.parseInt(value);
+      } else if (args[i].equals("--iteration-ms")) {
+        this.iterationMillis = Long.parseLong(value);
+      } else {
+        throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+  }
+
+  // Returns a serial Kruskal generator that has made one maze the size of the
+  // given world's, so its edges and sets are ready to measure. The world's own
+  // generator is the parallel one for big mazes on more than one core, which
+  // keeps neither.
+  static KruskalGenerator serialKruskal(MazeWorld w, boolean bucketedEdges) {
+    KruskalGenerator g = new KruskalGenerator(w.mazeWidth, w.mazeHeight);
+    g.bucketedEdges = bucketedEdges;
+    g.generate(w.rand.nextLong());
+    return g;
+  }
+
+  // EFFECT: Measures every benchmark matching the filter at every size
+  void runAll() {
+    System.out.println(String.format("%-22s %6s %14s %12s %14s %10s", "Benchmark", "size",
+        "ops/s", "+-", "alloc B/op", "gc.count"));
+    for (int size : this.sizes) {
+      this.measure("initMaze", size, w -> () -> w.initMaze());
+      for (String name : MazeWorld.GENERATORS) {
+        this.measure("generate." + name, size, w -> {
+          MazeGenerator g = MazeWorld.generatorFor(name, w.mazeWidth, w.mazeHeight);
+          MazeGrid grid = new MazeGrid(w.mazeWidth, w.mazeHeight);
+          return () -> g.generateInto(w.rand.nextLong(), grid);
+        });
+      }
+      this.measure("generate.parallel", size, w -> {
+        ParallelKruskalGenerator g = new ParallelKruskalGenerator(w.mazeWidth, w.mazeHeight);
+        return () -> g.generate(w.rand.nextLong());
+      });
+      this.measure("generateAdjacent+sort", size, w -> {
+        KruskalGenerator g = serialKruskal(w, false);
+        return () -> {
+          g.initialEdges.clear();
+          g.generateAdjacent();
+        };
+      });
+      this.measure("orderEdges", size, w -> {
+        KruskalGenerator g = serialKruskal(w, true);
+        return () -> g.orderEdges(w.rand.nextLong());
+      });
+      this.measure("buildWalls", size, w -> {
+        KruskalGenerator g = serialKruskal(w, true);
+        return () -> {
+          g.sets.reset();
+          g.buildWalls();
+        };
+      });
+      this.measure("unionFind", size, w -> {
+        KruskalGenerator g = serialKruskal(w, true);
+        UnionFind sets = g.sets;
+        IntStore order = g.edgeOrder;
+        return () -> {
+          sets.reset();
+          for (int i = 0; i < order.length; i++) {
+            int code = order.get(i);
+            int from = code >>> 1;
+            sets.union(from, (code & 1) == 0 ? from + 1 : from + w.mazeWidth);
+          }
+        };
+      });
+      this.measure("solve.breadthFirst", size, w -> {
+        w.initMaze();
+        return () -> new BreadthFirstSolver(w.grid, 0, w.end).solve();
+      });
+      this.measure("solve.depthFirst", size, w -> {
+        w.initMaze();
+        return () -> new DepthFirstSolver(w.grid, 0, w.end).solve();
+      });
+      this.measure("distances.queue", size, w -> {
+        w.initMaze();
+        DistanceField field = new DistanceField(w.grid, w.end);
+        return () -> field.build();
+      });
+      this.measure("distances.bitParallel", size, w -> {
+        w.initMaze();
+        DistanceField field = new DistanceField(w.grid, w.end, MazeStorage.heap(), true);
+        return () -> field.build();
+      });
+      this.measure("paths.build", size, w -> {
+        w.initMaze();
+        return () -> new CellTree(new DistanceField(w.grid, w.end));
+      });
+      this.measure("paths.distance", size, w -> {
+        w.initMaze();
+        CellTree tree = w.tree();
+        Random r = new Random(1);
+        return () -> tree.distance(w.grid.index(r.nextInt(size - 1), r.nextInt(size - 1)),
+            w.grid.index(r.nextInt(size - 1), r.nextInt(size - 1)));
+      });
+      this.measure("export.png", size, w -> {
+        w.initMaze();
+        MazePng png = new MazePng(w.grid, w.seen, w.onPath, 0, w.end, 1);
+        return () -> {
+          try {
+            png.write(OutputStream.nullOutputStream());
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        };
+      });
+      this.measure("makeScene.full", size, w -> {
+        w.initMaze();
+        return () -> {
+          w.layer = null;
+          w.makeScene();
+        };
+      });
+      this.measure("onTick+makeScene", size, w -> {
+        w.initMaze();
+        w.stepPolicy = StepPolicy.steps(64);
+        w.onKeyEvent("n");
+        return () -> {
+          if (w.found) {
+            w.onKeyEvent("n");
+          }
+          w.onTick();
+          w.makeScene();
+        };
+      });
+    }
+  }
+
+  // EFFECT: Warms up and measures the given benchmark at the given size,
+  // printing one line of results
+  void measure(String name, int size, Benchmark benchmark) {
+    if (!name.matches(this.filter)) {
+      return;
+    }
+    BenchmarkOp op = benchmark.prepare(new MazeWorld(size, size));
+    this.runFor(op, this.warmupMillis * 1000000);
+
+    ArrayList<Double> rates = new ArrayList<Double>();
+    long ops = 0;
+    long bytes = -this.allocatedBytes();
+    long gcs = -this.gcCount();
+    for (int i = 0; i < this.iterations; i++) {
+      long before = System.nanoTime();
+      long done = this.runFor(op, this.iterationMillis * 1000000);
+      rates.add(done * 1e9 / (System.nanoTime() - before));
+      ops += done;
+    }
+    bytes += this.allocatedBytes();
+    gcs += this.gcCount();
+
+    double mean = 0;
+    for (double r : rates) {
+      mean += r / rates.size();
+    }
+    double spread = 0;
+    for (double r : rates) {
+      spread = Math.max(spread, Math.abs(r - mean));
+    }
+    System.out.println(String.format("%-22s %6d %14.3f %12.3f %14d %10d", name, size, mean,
+        spread, bytes / Math.max(ops, 1), gcs));
+  }
+
+  // Returns how many times the operation ran
+  // EFFECT: Runs the operation until the given number of nanoseconds has
+  // passed, and at least once
+  long runFor(BenchmarkOp op, long nanos) {
+    long end = System.nanoTime() + nanos;
+    long count = 0;
+    do {
+      op.run();
+      count++;
+    } while (System.nanoTime() < end);
+    return count;
+  }
+
+  // Returns how many bytes this thread has allocated so far
+  long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  // Returns how many garbage collections have run so far
+  long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(gc.getCollectionCount(), 0);
+    }
+    return count;
+  }
+}
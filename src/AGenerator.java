@@ -0,0 +1,91 @@
+import java.util.Random;
+
+// Represents the bookkeeping shared by the generators that start with every
+// side closed and carve passages between the playable cells one at a time,
+// each in time proportional to the number of cells. Their working arrays are
+// kept from one maze to the next, so making more mazes of the same size
+// allocates nothing.
+abstract class AGenerator implements MazeGenerator {
+  // Number of vertices across and down
+  int width;
+  int height;
+  Random rand;
+  // The maze being made
+  MazeGrid grid;
+
+  AGenerator(int width, int height) {
+    if (width < 2 || height < 2) {
+      throw new IllegalArgumentException("A maze needs at least 2 x 2 vertices, given "
+          + width + " x " + height);
+    }
+    this.width = width;
+    this.height = height;
+    this.rand = new Random();
+  }
+
+  /*-
+   * Fields:
+   * ... this.width ... -- int
+   * ... this.height ... -- int
+   * ... this.rand ... -- Random
+   * ... this.grid ... -- MazeGrid
+   * Methods:
+   * ... this.carve() ... -- void
+   * ... this.generate(long) ... -- MazeGrid
+   * ... this.generateInto(long, MazeGrid) ... -- MazeGrid
+   * ... this.inside(int, int) ... -- boolean
+   * ... this.open(int, int) ... -- void
+   */
+
+  // EFFECT: Carves the passages of a new maze into the grid, whose sides are
+  // all closed, with rand already seeded
+  abstract void carve();
+
+  public MazeGrid generate(long seed) {
+    return this.generateInto(seed, new MazeGrid(this.width, this.height));
+  }
+
+  public MazeGrid generateInto(long seed, MazeGrid grid) {
+    this.grid = grid;
+    this.rand.setSeed(seed);
+    grid.closeAll();
+    this.carve();
+    return grid;
+  }
+
+  // Is there a playable cell next to the given playable cell in the given
+  // direction?
+  boolean inside(int cell, int dir) {
+    int x = cell % this.width;
+    int y = cell / this.width;
+    switch (dir) {
+      case MazeGrid.RIGHT:
+        return x + 2 < this.width;
+      case MazeGrid.DOWN:
+        return y + 2 < this.height;
+      case MazeGrid.LEFT:
+        return x > 0;
+      default:
+        return y > 0;
+    }
+  }
+
+  // EFFECT: Opens the side of the given cell in the given direction, which
+  // is also the facing side of its neighbour
+  void open(int cell, int dir) {
+    switch (dir) {
+      case MazeGrid.RIGHT:
+        this.grid.setRight(cell, true);
+        break;
+      case MazeGrid.DOWN:
+        this.grid.setDown(cell, true);
+        break;
+      case MazeGrid.LEFT:
+        this.grid.setRight(cell - 1, true);
+        break;
+      default:
+        this.grid.setDown(cell - this.width, true);
+        break;
+    }
+  }
+}
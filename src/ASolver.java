@@ -0,0 +1,93 @@
+// Represents the bookkeeping shared by every solver: the maze, the ends of
+// the path, and the statistics reported by each solver
+abstract class ASolver implements MazeSolver {
+  MazeGrid grid;
+  int start;
+  int target;
+  boolean found;
+  long expanded;
+  long elapsed;
+
+  // The order the solvers look at the neighbours of a cell
+  static final int[] SEARCH_ORDER = { MazeGrid.DOWN, MazeGrid.UP, MazeGrid.LEFT, MazeGrid.RIGHT };
+
+  ASolver(MazeGrid grid, int start, int target) {
+    this.grid = grid;
+    this.start = start;
+    this.target = target;
+    this.found = false;
+    this.expanded = 0;
+    this.elapsed = 0;
+  }
+
+  /*-
+   * Fields:
+   * ... this.grid ... -- MazeGrid
+   * ... this.start ... -- int
+   * ... this.target ... -- int
+   * ... this.found ... -- boolean
+   * ... this.expanded ... -- long
+   * ... this.elapsed ... -- long
+   * Methods:
+   * ... this.expand() ... -- int
+   * ... this.step() ... -- int
+   * ... this.solve() ... -- boolean
+   * ... this.found() ... -- boolean
+   * ... this.nodesExpanded() ... -- long
+   * ... this.elapsedNanos() ... -- long
+   * ... this.pathFrom(IntStore, int) ... -- int[]
+   * ... this.report() ... -- String
+   */
+
+  // Returns the cell this step worked on, or -1 if the solver is already done
+  // EFFECT: Does the next unit of work, without timing it
+  abstract int expand();
+
+  public int step() {
+    long before = System.nanoTime();
+    int cell = this.expand();
+    this.elapsed += System.nanoTime() - before;
+    return cell;
+  }
+
+  public boolean solve() {
+    long before = System.nanoTime();
+    while (!this.isDone()) {
+      this.expand();
+    }
+    this.elapsed += System.nanoTime() - before;
+    return this.found;
+  }
+
+  public boolean found() {
+    return this.found;
+  }
+
+  public long nodesExpanded() {
+    return this.expanded;
+  }
+
+  public long elapsedNanos() {
+    return this.elapsed;
+  }
+
+  // Returns the cells from the root of the given predecessors to cell, where
+  // the root is the cell that is its own predecessor
+  int[] pathFrom(IntStore previous, int cell) {
+    int length = 1;
+    for (int v = cell; previous.get(v) != v; v = previous.get(v)) {
+      length++;
+    }
+    int[] path = new int[length];
+    for (int v = cell; length > 0; v = previous.get(v)) {
+      path[--length] = v;
+    }
+    return path;
+  }
+
+  // Returns a line describing how much work this solver did
+  String report() {
+    return this.name() + ": " + this.expanded + " expanded, path " + this.path().length
+        + ", " + (this.elapsed / 1000) / 1000.0 + " ms";
+  }
+}
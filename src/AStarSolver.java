@@ -0,0 +1,104 @@
+// Represents an A* search that expands the cell with the smallest distance
+// from the start plus Manhattan distance to the target first. The cells
+// expanded, the distances and the predecessors are as big as the maze, so
+// they are kept by the given storage.
+class AStarSolver extends ASolver {
+  // Cells waiting to be expanded, keyed by their estimated path length
+  LongHeap open;
+  // Cells already expanded
+  CellSet closed;
+  // The shortest known distance from the start to each cell, or -1
+  IntStore distance;
+  // The cell each reached cell was reached from
+  IntStore previous;
+
+  AStarSolver(MazeGrid grid, int start, int target) {
+    this(grid, start, target, MazeStorage.heap());
+  }
+
+  AStarSolver(MazeGrid grid, int start, int target, MazeStorage storage) {
+    super(grid, start, target);
+    this.open = new LongHeap(64);
+    this.closed = storage.cells(grid.size());
+    this.distance = storage.ints(grid.size());
+    this.previous = storage.ints(grid.size());
+    this.distance.fill(-1);
+    this.distance.set(start, 0);
+    this.previous.set(start, start);
+    this.open.add(this.key(start, 0));
+  }
+
+  /*-
+   * Fields:
+   * ... this.open ... -- LongHeap
+   * ... this.closed ... -- CellSet
+   * ... this.distance ... -- IntStore
+   * ... this.previous ... -- IntStore
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.isDone() ... -- boolean
+   * ... this.frontierSize() ... -- int
+   * ... this.heuristic(int) ... -- int
+   * ... this.key(int, int) ... -- long
+   * ... this.expand() ... -- int
+   * ... this.path() ... -- int[]
+   */
+
+  public String name() {
+    return "A*";
+  }
+
+  public boolean isDone() {
+    return this.found || this.open.isEmpty();
+  }
+
+  public int frontierSize() {
+    return this.open.size;
+  }
+
+  // Returns the Manhattan distance from the given cell to the target
+  int heuristic(int cell) {
+    return Math.abs(this.grid.xOf(cell) - this.grid.xOf(this.target))
+        + Math.abs(this.grid.yOf(cell) - this.grid.yOf(this.target));
+  }
+
+  // Returns the heap key of a cell reached in the given distance: the
+  // estimate in the high bits and the cell in the low bits
+  long key(int cell, int distance) {
+    return ((long) (distance + this.heuristic(cell)) << 32) | cell;
+  }
+
+  // EFFECT: Takes the most promising cell off the heap and adds its neighbours
+  int expand() {
+    while (!this.isDone()) {
+      int cell = (int) this.open.removeMin();
+      if (!this.closed.add(cell)) {
+        // A stale entry for a cell reached again more cheaply
+        continue;
+      }
+      this.expanded++;
+      if (cell == this.target) {
+        this.found = true;
+        return cell;
+      }
+      int next = this.distance.get(cell) + 1;
+      for (int dir : SEARCH_ORDER) {
+        if (this.grid.canMove(cell, dir)) {
+          int n = this.grid.neighbor(cell, dir);
+          int known = this.distance.get(n);
+          if (!this.closed.contains(n) && (known < 0 || next < known)) {
+            this.distance.set(n, next);
+            this.previous.set(n, cell);
+            this.open.add(this.key(n, next));
+          }
+        }
+      }
+      return cell;
+    }
+    return -1;
+  }
+
+  public int[] path() {
+    return this.found ? this.pathFrom(this.previous, this.target) : new int[0];
+  }
+}
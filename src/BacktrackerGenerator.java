@@ -0,0 +1,67 @@
+// Makes mazes with the recursive backtracker: a depth first walk from the
+// top left cell that carves into a random unvisited neighbour while it has
+// one, and backs up when it does not. The walk is kept on an explicit stack
+// of cells rather than the call stack, so mazes of any size are made without
+// overflowing it. The mazes have long winding corridors and few junctions,
+// so their solutions are long.
+class BacktrackerGenerator extends AGenerator {
+  // The cells of the walk from the start to where it is now
+  int[] stack;
+  CellSet visited;
+  // The directions out of the current cell into unvisited cells
+  int[] ways;
+
+  BacktrackerGenerator(int width, int height) {
+    super(width, height);
+    this.ways = new int[4];
+  }
+
+  /*-
+   * Fields:
+   * ... this.stack ... -- int[]
+   * ... this.visited ... -- CellSet
+   * ... this.ways ... -- int[]
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.carve() ... -- void
+   */
+
+  public String name() {
+    return "backtracker";
+  }
+
+  // EFFECT: Walks from the top left cell, carving into unvisited cells until
+  // every cell has been visited
+  void carve() {
+    int size = this.grid.size();
+    if (this.stack == null || this.stack.length != size) {
+      this.stack = new int[size];
+      this.visited = new CellSet(size);
+    } else {
+      this.visited.clear();
+    }
+    int[] stack = this.stack;
+    int top = 0;
+    stack[top++] = 0;
+    this.visited.add(0);
+    int[] ways = this.ways;
+    while (top > 0) {
+      int cell = stack[top - 1];
+      int count = 0;
+      for (int dir = 0; dir < 4; dir++) {
+        if (this.inside(cell, dir) && !this.visited.contains(this.grid.neighbor(cell, dir))) {
+          ways[count++] = dir;
+        }
+      }
+      if (count == 0) {
+        top--;
+      } else {
+        int dir = ways[this.rand.nextInt(count)];
+        int next = this.grid.neighbor(cell, dir);
+        this.open(cell, dir);
+        this.visited.add(next);
+        stack[top++] = next;
+      }
+    }
+  }
+}
@@ -0,0 +1,138 @@
+// Represents two breadth first searches, one from the start and one from the
+// target, taking turns until their visited cells meet in the middle. The
+// visited cells and the predecessors are as big as the maze, so they are kept
+// by the given storage.
+class BidirectionalSolver extends ASolver {
+  IntDeque fromStart;
+  IntDeque fromTarget;
+  CellSet seenFromStart;
+  CellSet seenFromTarget;
+  // The cell each cell was reached from, by the search that reached it. Each
+  // cell belongs to at most one of the searches, so they can share the store.
+  IntStore previous;
+  // The cells on either side of the passage where the searches met
+  int meetStart;
+  int meetTarget;
+  // Which search takes the next step
+  boolean startsTurn;
+
+  BidirectionalSolver(MazeGrid grid, int start, int target) {
+    this(grid, start, target, MazeStorage.heap());
+  }
+
+  BidirectionalSolver(MazeGrid grid, int start, int target, MazeStorage storage) {
+    super(grid, start, target);
+    this.fromStart = new IntDeque(64);
+    this.fromTarget = new IntDeque(64);
+    this.seenFromStart = storage.cells(grid.size());
+    this.seenFromTarget = storage.cells(grid.size());
+    this.previous = storage.ints(grid.size());
+    this.previous.set(start, start);
+    this.previous.set(target, target);
+    this.seenFromStart.add(start);
+    this.seenFromTarget.add(target);
+    this.fromStart.addLast(start);
+    this.fromTarget.addLast(target);
+    this.startsTurn = true;
+    if (start == target) {
+      this.meet(start, target);
+    }
+  }
+
+  /*-
+   * Fields:
+   * ... this.fromStart ... -- IntDeque
+   * ... this.fromTarget ... -- IntDeque
+   * ... this.seenFromStart ... -- CellSet
+   * ... this.seenFromTarget ... -- CellSet
+   * ... this.previous ... -- IntStore
+   * ... this.meetStart ... -- int
+   * ... this.meetTarget ... -- int
+   * ... this.startsTurn ... -- boolean
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.isDone() ... -- boolean
+   * ... this.frontierSize() ... -- int
+   * ... this.expand() ... -- int
+   * ... this.expandFrom(IntDeque, CellSet, CellSet, boolean) ... -- int
+   * ... this.meet(int, int) ... -- void
+   * ... this.path() ... -- int[]
+   */
+
+  public String name() {
+    return "bidirectional";
+  }
+
+  public boolean isDone() {
+    return this.found || this.fromStart.isEmpty() || this.fromTarget.isEmpty();
+  }
+
+  public int frontierSize() {
+    return this.fromStart.size + this.fromTarget.size;
+  }
+
+  // EFFECT: Expands one cell of whichever search's turn it is
+  int expand() {
+    if (this.isDone()) {
+      return -1;
+    }
+    this.startsTurn = !this.startsTurn;
+    if (!this.startsTurn) {
+      return this.expandFrom(this.fromStart, this.seenFromStart, this.seenFromTarget, true);
+    } else {
+      return this.expandFrom(this.fromTarget, this.seenFromTarget, this.seenFromStart, false);
+    }
+  }
+
+  // Returns the cell expanded from the given frontier
+  // EFFECT: Adds the unvisited neighbours of that cell to the frontier, or
+  // stops both searches if one of them was visited by the other search
+  int expandFrom(IntDeque frontier, CellSet mine, CellSet theirs, boolean isStart) {
+    int cell = frontier.removeFirst();
+    this.expanded++;
+    for (int dir : SEARCH_ORDER) {
+      if (this.grid.canMove(cell, dir)) {
+        int next = this.grid.neighbor(cell, dir);
+        if (theirs.contains(next)) {
+          if (isStart) {
+            this.meet(cell, next);
+          } else {
+            this.meet(next, cell);
+          }
+          return cell;
+        }
+        if (mine.add(next)) {
+          this.previous.set(next, cell);
+          frontier.addLast(next);
+        }
+      }
+    }
+    return cell;
+  }
+
+  // EFFECT: Records that the search from the start reached fromStart, and the
+  // search from the target reached fromTarget, next to each other
+  void meet(int fromStart, int fromTarget) {
+    this.found = true;
+    this.meetStart = fromStart;
+    this.meetTarget = fromTarget;
+  }
+
+  public int[] path() {
+    if (!this.found) {
+      return new int[0];
+    }
+    int[] head = this.pathFrom(this.previous, this.meetStart);
+    int[] tail = this.meetStart == this.meetTarget ? new int[0]
+        : this.pathFrom(this.previous, this.meetTarget);
+    int[] path = new int[head.length + tail.length];
+    for (int i = 0; i < head.length; i++) {
+      path[i] = head[i];
+    }
+    // The tail runs from the target to the meeting point, so it goes in backwards
+    for (int i = 0; i < tail.length; i++) {
+      path[head.length + i] = tail[tail.length - 1 - i];
+    }
+    return path;
+  }
+}
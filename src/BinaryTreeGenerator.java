@@ -0,0 +1,40 @@
+// Makes mazes with the Binary Tree algorithm: every cell opens either its
+// left or its top side at random, except along the top row and the left
+// column, where there is only one choice. Each cell is decided on its own,
+// but the top row and the left column are long corridors and every path
+// towards the top left corner only goes up and left.
+class BinaryTreeGenerator extends AGenerator {
+  BinaryTreeGenerator(int width, int height) {
+    super(width, height);
+  }
+
+  /*-
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.carve() ... -- void
+   */
+
+  public String name() {
+    return "binary-tree";
+  }
+
+  // EFFECT: Opens the left or top side of every cell but the top left one
+  void carve() {
+    int across = this.width - 1;
+    int down = this.height - 1;
+    for (int y = 0; y < down; y++) {
+      for (int x = 0; x < across; x++) {
+        int cell = y * this.width + x;
+        if (y == 0) {
+          if (x > 0) {
+            this.open(cell, MazeGrid.LEFT);
+          }
+        } else if (x == 0 || this.rand.nextBoolean()) {
+          this.open(cell, MazeGrid.UP);
+        } else {
+          this.open(cell, MazeGrid.LEFT);
+        }
+      }
+    }
+  }
+}
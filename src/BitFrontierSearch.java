@@ -0,0 +1,181 @@
+// Represents a breadth first search that moves a whole level of the frontier
+// at once, 64 cells to a word, instead of a cell at a time. The cells are
+// bits in index order, so the cell to the right of a cell is the next bit
+// and the cell below is width bits on. The "right open" and "down open" bits
+// of the grid are pulled apart into two masks in that order, and each level
+// is found from the last with shifts, ANDs and ORs against them:
+//
+//   right  (frontier & right) << 1
+//   left   (frontier >>> 1) & right
+//   down   (frontier & down) << width
+//   up     (frontier >>> width) & down
+//
+// less the cells already visited. The cells past the right border have no
+// open sides, so no move wraps into the next row. Only the words holding
+// part of the frontier are touched, so a narrow frontier crossing a huge
+// maze does not sweep every word on every level. The words are plain longs:
+// the build targets Java 11, which has no Vector API.
+class BitFrontierSearch {
+  MazeGrid grid;
+  // How many words hold a bit for every cell
+  int words;
+  // One bit per cell: whether its right side is open, whether its bottom
+  // side is open, whether the search has reached it, whether it is on the
+  // current level, and whether it was reached from the current level
+  long[] right;
+  long[] down;
+  long[] visited;
+  long[] frontier;
+  long[] next;
+  // The words with bits in frontier and in next
+  int[] active;
+  int activeCount;
+  int[] nextActive;
+  int nextCount;
+
+  BitFrontierSearch(MazeGrid grid) {
+    this.grid = grid;
+    this.words = (int) (((long) grid.size() + 63) >>> 6);
+    this.right = new long[this.words];
+    this.down = new long[this.words];
+    this.visited = new long[this.words];
+    this.frontier = new long[this.words];
+    this.next = new long[this.words];
+    this.active = new int[this.words];
+    this.nextActive = new int[this.words];
+  }
+
+  /*-
+   * Fields:
+   * ... this.grid ... -- MazeGrid
+   * ... this.words ... -- int
+   * ... this.right ... -- long[]
+   * ... this.down ... -- long[]
+   * ... this.visited ... -- long[]
+   * ... this.frontier ... -- long[]
+   * ... this.next ... -- long[]
+   * ... this.active ... -- int[]
+   * ... this.activeCount ... -- int
+   * ... this.nextActive ... -- int[]
+   * ... this.nextCount ... -- int
+   * Methods:
+   * ... BitFrontierSearch.evenBits(long) ... -- long
+   * ... this.readMasks() ... -- void
+   * ... this.search(int, IntStore, IntStore) ... -- int
+   * ... this.advance() ... -- void
+   * ... this.offer(int, long) ... -- void
+   */
+
+  // Returns bits 0, 2, 4, ... 62 of the given word packed into its low 32 bits,
+  // which Long.compress does from Java 19 on
+  static long evenBits(long w) {
+    w &= 0x5555555555555555L;
+    w = (w | (w >>> 1)) & 0x3333333333333333L;
+    w = (w | (w >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+    w = (w | (w >>> 4)) & 0x00FF00FF00FF00FFL;
+    w = (w | (w >>> 8)) & 0x0000FFFF0000FFFFL;
+    return (w | (w >>> 16)) & 0x00000000FFFFFFFFL;
+  }
+
+  // EFFECT: Reads the right and down masks from the grid, whose words hold
+  // the two bits of 32 cells each
+  void readMasks() {
+    int count = this.grid.wordCount();
+    for (int j = 0; j < this.words; j++) {
+      long low = this.grid.word(2 * j);
+      long high = 2 * j + 1 < count ? this.grid.word(2 * j + 1) : 0;
+      this.right[j] = evenBits(low) | (evenBits(high) << 32);
+      this.down[j] = evenBits(low >>> 1) | (evenBits(high >>> 1) << 32);
+    }
+  }
+
+  // Returns how many cells the search reached
+  // EFFECT: Searches outward from the given cell, setting the distance of
+  // every cell, -1 for those never reached, and putting the cells reached in
+  // order of distance into order
+  int search(int target, IntStore distance, IntStore order) {
+    this.readMasks();
+    for (int j = 0; j < this.words; j++) {
+      this.visited[j] = 0;
+    }
+    distance.fill(-1);
+    distance.set(target, 0);
+    order.set(0, target);
+    int reached = 1;
+    this.visited[target >>> 6] = 1L << target;
+    this.frontier[target >>> 6] = 1L << target;
+    this.active[0] = target >>> 6;
+    this.activeCount = 1;
+    for (int level = 1; this.activeCount > 0; level++) {
+      this.advance();
+      // Keep what is new on the next level, and make it the frontier
+      this.activeCount = 0;
+      for (int b = 0; b < this.nextCount; b++) {
+        int j = this.nextActive[b];
+        long fresh = this.next[j] & ~this.visited[j];
+        this.next[j] = 0;
+        if (fresh == 0) {
+          continue;
+        }
+        this.visited[j] |= fresh;
+        this.frontier[j] = fresh;
+        this.active[this.activeCount++] = j;
+        for (long bits = fresh; bits != 0; bits &= bits - 1) {
+          int cell = (j << 6) + Long.numberOfTrailingZeros(bits);
+          distance.set(cell, level);
+          order.set(reached++, cell);
+        }
+      }
+    }
+    return reached;
+  }
+
+  // EFFECT: Moves every cell of the frontier each way it can go into next,
+  // emptying the frontier
+  void advance() {
+    int q = this.grid.width >>> 6;
+    int r = this.grid.width & 63;
+    this.nextCount = 0;
+    for (int a = 0; a < this.activeCount; a++) {
+      int j = this.active[a];
+      long f = this.frontier[j];
+      this.frontier[j] = 0;
+      long moves = f & this.right[j];
+      this.offer(j, moves << 1);
+      this.offer(j + 1, moves >>> 63);
+      this.offer(j, (f >>> 1) & this.right[j]);
+      if (j > 0) {
+        this.offer(j - 1, (f << 63) & this.right[j - 1]);
+      }
+      moves = f & this.down[j];
+      if (r == 0) {
+        this.offer(j + q, moves);
+        if (j - q >= 0) {
+          this.offer(j - q, f & this.down[j - q]);
+        }
+      } else {
+        this.offer(j + q, moves << r);
+        this.offer(j + q + 1, moves >>> (64 - r));
+        if (j - q >= 0) {
+          this.offer(j - q, (f >>> r) & this.down[j - q]);
+        }
+        if (j - q - 1 >= 0) {
+          this.offer(j - q - 1, (f << (64 - r)) & this.down[j - q - 1]);
+        }
+      }
+    }
+  }
+
+  // EFFECT: Adds the given cells of the given word to next. Cells are only
+  // ever moved into through an open side, so a word with cells is always
+  // inside the grid.
+  void offer(int j, long bits) {
+    if (bits == 0) {
+      return;
+    }
+    if (this.next[j] == 0) {
+      this.nextActive[this.nextCount++] = j;
+    }
+    this.next[j] |= bits;
+  }
+}
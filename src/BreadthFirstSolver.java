@@ -0,0 +1,10 @@
+// Represents a breadth first search from the start to the target
+class BreadthFirstSolver extends FrontierSolver {
+  BreadthFirstSolver(MazeGrid grid, int start, int target) {
+    super(grid, start, target, false);
+  }
+
+  BreadthFirstSolver(MazeGrid grid, int start, int target, MazeStorage storage) {
+    super(grid, start, target, false, storage);
+  }
+}
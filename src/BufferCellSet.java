@@ -0,0 +1,80 @@
+import java.nio.LongBuffer;
+
+// Represents a set of cell indices kept in a buffer, such as direct memory or
+// part of a file mapped into memory, instead of an array
+class BufferCellSet extends CellSet {
+  LongBuffer buffer;
+
+  BufferCellSet(LongBuffer buffer) {
+    // The words array of CellSet is left out, since every method that
+    // touches it is replaced here
+    super(0);
+    this.words = null;
+    this.buffer = buffer;
+  }
+
+  /*-
+   * Fields:
+   * ... this.buffer ... -- LongBuffer
+   * Methods:
+   * ... this.contains(int) ... -- boolean
+   * ... this.add(int) ... -- boolean
+   * ... this.remove(int) ... -- void
+   * ... this.anyIn(int, int) ... -- boolean
+   * ... this.clear() ... -- void
+   */
+
+  // Is cell i in this set?
+  @Override
+  boolean contains(int i) {
+    return (this.buffer.get(i >>> 6) & (1L << i)) != 0;
+  }
+
+  // Returns true if cell i was not in this set yet
+  // EFFECT: Adds cell i to this set
+  @Override
+  boolean add(int i) {
+    long mask = 1L << i;
+    long word = this.buffer.get(i >>> 6);
+    this.buffer.put(i >>> 6, word | mask);
+    return (word & mask) == 0;
+  }
+
+  // EFFECT: Removes cell i from this set
+  @Override
+  void remove(int i) {
+    this.buffer.put(i >>> 6, this.buffer.get(i >>> 6) & ~(1L << i));
+  }
+
+  // Is any cell from start up to but not including end in this set?
+  @Override
+  boolean anyIn(int start, int end) {
+    if (start >= end) {
+      return false;
+    }
+    int first = start >>> 6;
+    int last = (end - 1) >>> 6;
+    long head = -1L << start;
+    long tail = -1L >>> (63 - ((end - 1) & 63));
+    if (first == last) {
+      return (this.buffer.get(first) & head & tail) != 0;
+    }
+    if ((this.buffer.get(first) & head) != 0 || (this.buffer.get(last) & tail) != 0) {
+      return true;
+    }
+    for (int w = first + 1; w < last; w++) {
+      if (this.buffer.get(w) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // EFFECT: Removes every cell from this set
+  @Override
+  void clear() {
+    for (int i = 0; i < this.buffer.capacity(); i++) {
+      this.buffer.put(i, 0);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+// Represents a set of cell indices, one bit per cell
+class CellSet {
+  long[] words;
+
+  CellSet(int size) {
+    this.words = new long[(size + 63) >>> 6];
+  }
+
+  /*-
+   * Fields:
+   * ... this.words ... -- long[]
+   * Methods:
+   * ... this.contains(int) ... -- boolean
+   * ... this.add(int) ... -- boolean
+   * ... this.remove(int) ... -- void
+   * ... this.anyIn(int, int) ... -- boolean
+   * ... this.clear() ... -- void
+   */
+
+  // Is cell i in this set?
+  boolean contains(int i) {
+    return (this.words[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // Returns true if cell i was not in this set yet
+  // EFFECT: Adds cell i to this set
+  boolean add(int i) {
+    long mask = 1L << i;
+    long word = this.words[i >>> 6];
+    this.words[i >>> 6] = word | mask;
+    return (word & mask) == 0;
+  }
+
+  // EFFECT: Removes cell i from this set
+  void remove(int i) {
+    this.words[i >>> 6] &= ~(1L << i);
+  }
+
+  // Is any cell from start up to but not including end in this set?
+  boolean anyIn(int start, int end) {
+    if (start >= end) {
+      return false;
+    }
+    int first = start >>> 6;
+    int last = (end - 1) >>> 6;
+    long head = -1L << start;
+    long tail = -1L >>> (63 - ((end - 1) & 63));
+    if (first == last) {
+      return (this.words[first] & head & tail) != 0;
+    }
+    if ((this.words[first] & head) != 0 || (this.words[last] & tail) != 0) {
+      return true;
+    }
+    for (int w = first + 1; w < last; w++) {
+      if (this.words[w] != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // EFFECT: Removes every cell from this set
+  void clear() {
+    for (int i = 0; i < this.words.length; i++) {
+      this.words[i] = 0;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+// Represents the maze as the tree it is, hung from the target of a
+// DistanceField, so the way between any two cells is found without a search.
+// Besides its parent, each cell keeps one jump pointer to a cell further up,
+// laid out by the skew-binary scheme of Myers: a cell jumps past both its
+// parent's jump and the jump after that when those two are the same length,
+// and only to its parent otherwise. So every cell reaches any of its
+// ancestors in O(log n) jumps, with a single int per cell rather than a table
+// of log n of them.
+class CellTree {
+  DistanceField field;
+  MazeGrid grid;
+  // The ancestor each cell jumps to, or -1 for cells not in the tree
+  IntStore jump;
+
+  CellTree(DistanceField field) {
+    this(field, MazeStorage.heap());
+  }
+
+  CellTree(DistanceField field, MazeStorage storage) {
+    this.field = field;
+    this.grid = field.grid;
+    this.jump = storage.ints(this.grid.size());
+    this.build();
+  }
+
+  /*-
+   * Fields:
+   * ... this.field ... -- DistanceField
+   * ... this.grid ... -- MazeGrid
+   * ... this.jump ... -- IntStore
+   * Methods:
+   * ... this.build() ... -- void
+   * ... this.depth(int) ... -- int
+   * ... this.parent(int) ... -- int
+   * ... this.ancestor(int, int) ... -- int
+   * ... this.commonAncestor(int, int) ... -- int
+   * ... this.distance(int, int) ... -- int
+   * ... this.path(int, int) ... -- int[]
+   */
+
+  // EFFECT: Finds the jump of every cell, each after its parent's, by
+  // taking the cells in the order the distances were found
+  void build() {
+    IntStore jump = this.jump;
+    int root = this.field.target;
+    jump.fill(-1);
+    jump.set(root, root);
+    for (int i = 1; i < this.field.reached; i++) {
+      int cell = this.field.order.get(i);
+      int p = this.parent(cell);
+      int j = jump.get(p);
+      int jj = jump.get(j);
+      if (this.depth(p) - this.depth(j) == this.depth(j) - this.depth(jj)) {
+        jump.set(cell, jj);
+      } else {
+        jump.set(cell, p);
+      }
+    }
+  }
+
+  // Returns how far the given cell is from the root, or -1 if it is not in
+  // the tree
+  int depth(int cell) {
+    return this.field.distance.get(cell);
+  }
+
+  // Returns the parent of the given cell, the next cell on its way to the root
+  int parent(int cell) {
+    return this.grid.neighbor(cell, this.field.nextMove(cell));
+  }
+
+  // Returns the ancestor of the given cell at the given depth, which must be
+  // no deeper than the cell
+  int ancestor(int cell, int depth) {
+    while (this.depth(cell) > depth) {
+      if (this.depth(this.jump.get(cell)) >= depth) {
+        cell = this.jump.get(cell);
+      } else {
+        cell = this.parent(cell);
+      }
+    }
+    return cell;
+  }
+
+  // Returns the deepest cell both given cells pass on their way to the root.
+  // Cells at the same depth jump the same distance, so once level the two
+  // jump together whenever that does not meet, and step up a parent when it
+  // would.
+  int commonAncestor(int a, int b) {
+    int level = Math.min(this.depth(a), this.depth(b));
+    a = this.ancestor(a, level);
+    b = this.ancestor(b, level);
+    while (a != b) {
+      int ja = this.jump.get(a);
+      int jb = this.jump.get(b);
+      if (ja != jb) {
+        a = ja;
+        b = jb;
+      } else {
+        a = this.parent(a);
+        b = this.parent(b);
+      }
+    }
+    return a;
+  }
+
+  // Returns the number of steps between the two given cells, or -1 if either
+  // is not in the tree
+  int distance(int a, int b) {
+    if (this.depth(a) < 0 || this.depth(b) < 0) {
+      return -1;
+    }
+    return this.depth(a) + this.depth(b) - 2 * this.depth(this.commonAncestor(a, b));
+  }
+
+  // Returns the cells from the first given cell to the second, both
+  // included, or no cells if either is not in the tree
+  int[] path(int from, int to) {
+    int steps = this.distance(from, to);
+    if (steps < 0) {
+      return new int[0];
+    }
+    int meet = this.commonAncestor(from, to);
+    int[] path = new int[steps + 1];
+    int i = 0;
+    for (int cell = from; cell != meet; cell = this.parent(cell)) {
+      path[i++] = cell;
+    }
+    int j = steps;
+    for (int cell = to; cell != meet; cell = this.parent(cell)) {
+      path[j--] = cell;
+    }
+    path[i] = meet;
+    return path;
+  }
+}
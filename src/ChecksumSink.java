@@ -0,0 +1,53 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+// Represents a CRC-32 of the maze as it is made: of the words of its walls,
+// little endian, so it matches the walls of the MazeFile the maze is saved to
+class ChecksumSink extends PackedRowSink {
+  CRC32 crc;
+  ByteBuffer buffer;
+
+  ChecksumSink() {
+    this.crc = new CRC32();
+    this.buffer = ByteBuffer.allocate(1 << 12).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /*-
+   * Fields:
+   * ... this.crc ... -- CRC32
+   * ... this.buffer ... -- ByteBuffer
+   * Methods:
+   * ... this.start(int, int, long, String) ... -- void
+   * ... this.word(long) ... -- void
+   * ... this.done() ... -- void
+   * ... this.value() ... -- long
+   */
+
+  public void start(int width, int height, long seed, String generator) throws IOException {
+    super.start(width, height, seed, generator);
+    this.crc.reset();
+    this.buffer.clear();
+  }
+
+  void word(long w) {
+    if (!this.buffer.hasRemaining()) {
+      this.buffer.flip();
+      this.crc.update(this.buffer);
+      this.buffer.clear();
+    }
+    this.buffer.putLong(w);
+  }
+
+  void done() {
+    this.buffer.flip();
+    this.crc.update(this.buffer);
+    this.buffer.clear();
+  }
+
+  // Returns the checksum of the maze taken so far
+  long value() {
+    return this.crc.getValue();
+  }
+}
@@ -0,0 +1,242 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Represents a maze without end, split into square chunks of cells. Each
+// chunk is a maze of its own, made by Kruskal's algorithm from a seed mixed
+// from the world's seed and the chunk's position, so it is only made when it
+// is first needed and is the same every time. Every chunk has one door in its
+// right side and one in its bottom side, at a row and column hashed the same
+// way, so the whole maze is connected, and a perfect maze within each chunk.
+//
+// The chunks made are kept in a cache of at most capacity chunks, the least
+// recently used going first, so however far the maze is explored it takes
+// the same memory. Chunks that go are written to the spill directory, if
+// there is one, and read back from there rather than made again.
+class ChunkedMaze {
+  long seed;
+  // Cells across and down each chunk
+  int chunkSize;
+  int capacity;
+  // Where chunks that leave the cache are written, or null to drop them
+  File spill;
+  KruskalGenerator generator;
+  ChunkCache cache;
+  // The grid of the last chunk to leave the cache, to make the next one in
+  MazeGrid spare;
+  // How many chunks were made, read back from the spill directory, and
+  // dropped from the cache
+  long generated;
+  long loaded;
+  long evicted;
+
+  // The sides of a chunk with a door
+  static final int RIGHT_DOOR = 0;
+  static final int DOWN_DOOR = 1;
+
+  ChunkedMaze(long seed, int chunkSize, int capacity, File spill) {
+    if (chunkSize < 1 || capacity < 1) {
+      throw new IllegalArgumentException("Chunks need at least one cell and the cache room "
+          + "for one chunk, given " + chunkSize + " and " + capacity);
+    }
+    this.seed = seed;
+    this.chunkSize = chunkSize;
+    this.capacity = capacity;
+    this.spill = spill;
+    // A grid of n + 1 vertices across has n playable cells across
+    this.generator = new KruskalGenerator(chunkSize + 1, chunkSize + 1);
+    this.cache = new ChunkCache(this);
+  }
+
+  /*-
+   * Fields:
+   * ... this.seed ... -- long
+   * ... this.chunkSize ... -- int
+   * ... this.capacity ... -- int
+   * ... this.spill ... -- File
+   * ... this.generator ... -- KruskalGenerator
+   * ... this.cache ... -- ChunkCache
+   * ... this.spare ... -- MazeGrid
+   * ... this.generated ... -- long
+   * ... this.loaded ... -- long
+   * ... this.evicted ... -- long
+   * Methods:
+   * ... ChunkedMaze.key(int, int) ... -- long
+   * ... this.hash(int, int, int) ... -- long
+   * ... this.door(int, int, int) ... -- int
+   * ... this.chunk(int, int) ... -- MazeGrid
+   * ... this.spillFile(int, int) ... -- File
+   * ... this.evict(long, MazeGrid) ... -- void
+   * ... this.canMove(int, int, int, int, int) ... -- boolean
+   * ... this.window(int, int, int, MazeGrid) ... -- MazeGrid
+   */
+
+  // Returns the key of the chunk at the given position in the cache
+  static long key(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+  }
+
+  // Returns a number mixed from the seed, the given chunk and the given use,
+  // so every chunk gets unrelated ones
+  long hash(int cx, int cy, int use) {
+    return MazeBatch.mazeSeed(this.seed + key(cx, cy) * 0xD6E8FEB86659FD93L, use);
+  }
+
+  // Returns the row of the door in the right side, or the column of the door
+  // in the bottom side, of the given chunk
+  int door(int cx, int cy, int side) {
+    return (int) Long.remainderUnsigned(this.hash(cx, cy, 1 + side), this.chunkSize);
+  }
+
+  // Returns the maze of the given chunk, whose playable cells are the top
+  // left chunkSize x chunkSize cells of the grid
+  // EFFECT: Makes it or reads it back, if it is not in the cache, which may
+  // push out the least recently used chunk
+  MazeGrid chunk(int cx, int cy) {
+    long key = key(cx, cy);
+    MazeGrid grid = this.cache.get(key);
+    if (grid != null) {
+      return grid;
+    }
+    File file = this.spillFile(cx, cy);
+    if (file != null && file.exists()) {
+      try {
+        grid = MazeFile.load(file).grid;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      this.loaded++;
+    } else {
+      grid = this.spare != null ? this.spare
+          : new MazeGrid(this.chunkSize + 1, this.chunkSize + 1);
+      this.spare = null;
+      this.generator.generateInto(this.hash(cx, cy, 0), grid);
+      this.generated++;
+    }
+    this.cache.put(key, grid);
+    return grid;
+  }
+
+  // Returns the file the given chunk is spilled to, or null if chunks are not
+  // spilled
+  File spillFile(int cx, int cy) {
+    if (this.spill == null) {
+      return null;
+    }
+    return new File(this.spill, "chunk_" + cx + "_" + cy + ".bin");
+  }
+
+  // EFFECT: Lets go of the chunk with the given key and grid, writing it to
+  // the spill directory if it is not there yet, and keeping its grid for the
+  // next chunk if it is on the heap
+  void evict(long key, MazeGrid grid) {
+    int cx = (int) (key >> 32);
+    int cy = (int) key;
+    File file = this.spillFile(cx, cy);
+    if (file != null && !file.exists()) {
+      try {
+        MazeFile.save(grid, this.hash(cx, cy, 0), this.generator.name(), file);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    if (grid.walls != null) {
+      this.spare = grid;
+    }
+    this.evicted++;
+  }
+
+  // Can you walk out of the given cell of the given chunk in the given
+  // direction? Moves across the side of a chunk go through its doors.
+  boolean canMove(int cx, int cy, int x, int y, int dir) {
+    int last = this.chunkSize - 1;
+    switch (dir) {
+      case MazeGrid.RIGHT:
+        if (x == last) {
+          return this.door(cx, cy, RIGHT_DOOR) == y;
+        }
+        break;
+      case MazeGrid.DOWN:
+        if (y == last) {
+          return this.door(cx, cy, DOWN_DOOR) == x;
+        }
+        break;
+      case MazeGrid.LEFT:
+        if (x == 0) {
+          return this.door(cx - 1, cy, RIGHT_DOOR) == y;
+        }
+        break;
+      default:
+        if (y == 0) {
+          return this.door(cx, cy - 1, DOWN_DOOR) == x;
+        }
+        break;
+    }
+    MazeGrid grid = this.chunk(cx, cy);
+    return grid.canMove(grid.index(x, y), dir);
+  }
+
+  // Returns the given grid with the square of chunks x chunks chunks from
+  // the given chunk at its top left copied into it, with the doors between
+  // them open and the sides of the square closed. The grid must have
+  // chunks * chunkSize + 1 vertices across and down.
+  MazeGrid window(int cx, int cy, int chunks, MazeGrid into) {
+    int size = this.chunkSize;
+    into.closeAll();
+    for (int j = 0; j < chunks; j++) {
+      for (int i = 0; i < chunks; i++) {
+        MazeGrid chunk = this.chunk(cx + i, cy + j);
+        for (int y = 0; y < size; y++) {
+          for (int x = 0; x < size; x++) {
+            int from = chunk.index(x, y);
+            int to = into.index(i * size + x, j * size + y);
+            into.setRight(to, chunk.openRight(from));
+            into.setDown(to, chunk.openDown(from));
+          }
+        }
+        if (i + 1 < chunks) {
+          int y = this.door(cx + i, cy + j, RIGHT_DOOR);
+          into.setRight(into.index(i * size + size - 1, j * size + y), true);
+        }
+        if (j + 1 < chunks) {
+          int x = this.door(cx + i, cy + j, DOWN_DOOR);
+          into.setDown(into.index(i * size + x, j * size + size - 1), true);
+        }
+      }
+    }
+    return into;
+  }
+}
+
+// Represents the chunks of a ChunkedMaze held in memory, in order of use, the
+// least recently used first
+class ChunkCache extends LinkedHashMap<Long, MazeGrid> {
+  ChunkedMaze maze;
+
+  static final long serialVersionUID = 1L;
+
+  ChunkCache(ChunkedMaze maze) {
+    super(16, 0.75f, true);
+    this.maze = maze;
+  }
+
+  /*-
+   * Fields:
+   * ... this.maze ... -- ChunkedMaze
+   * Methods:
+   * ... this.removeEldestEntry(Map.Entry<Long, MazeGrid>) ... -- boolean
+   */
+
+  // Returns true if the least recently used chunk has to go to make room
+  // EFFECT: Hands that chunk to the maze to let go of
+  @Override
+  protected boolean removeEldestEntry(Map.Entry<Long, MazeGrid> eldest) {
+    if (this.size() <= this.maze.capacity) {
+      return false;
+    }
+    this.maze.evict(eldest.getKey(), eldest.getValue());
+    return true;
+  }
+}
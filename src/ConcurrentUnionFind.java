@@ -0,0 +1,80 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Represents disjoint sets of indices that many threads can find and join at
+// once without locks. A representative is only ever hung under another by
+// compareAndSet, always under the one with the higher priority, a fixed
+// random-looking number per index, so no cycle can form however the threads
+// interleave and the trees stay shallow without keeping ranks.
+class ConcurrentUnionFind {
+  // The parent of each index; an index that is its own parent is a representative
+  AtomicIntegerArray parent;
+
+  ConcurrentUnionFind(int size) {
+    this.parent = new AtomicIntegerArray(size);
+    this.reset();
+  }
+
+  /*-
+   * Fields:
+   * ... this.parent ... -- AtomicIntegerArray
+   * Methods:
+   * ... this.reset() ... -- void
+   * ... this.find(int) ... -- int
+   * ... this.union(int, int) ... -- boolean
+   * ... ConcurrentUnionFind.priority(int) ... -- long
+   */
+
+  // EFFECT: Puts every index back into a set of its own
+  void reset() {
+    for (int i = 0; i < this.parent.length(); i++) {
+      this.parent.set(i, i);
+    }
+  }
+
+  // Returns the representative of the given index
+  // EFFECT: Points every other index on the way at its grandparent
+  int find(int i) {
+    while (true) {
+      int p = this.parent.get(i);
+      if (p == i) {
+        return i;
+      }
+      int grandparent = this.parent.get(p);
+      if (grandparent == p) {
+        return p;
+      }
+      this.parent.compareAndSet(i, p, grandparent);
+      i = grandparent;
+    }
+  }
+
+  // Returns true if the two indices were in different sets
+  // EFFECT: Joins the sets of the two indices, trying again if another
+  // thread moved either representative first
+  boolean union(int i, int j) {
+    while (true) {
+      int ri = this.find(i);
+      int rj = this.find(j);
+      if (ri == rj) {
+        return false;
+      }
+      if (priority(ri) > priority(rj)) {
+        int swap = ri;
+        ri = rj;
+        rj = swap;
+      }
+      if (this.parent.compareAndSet(ri, ri, rj)) {
+        return true;
+      }
+    }
+  }
+
+  // Returns the priority of the given index, by the SplitMix64 finalizer,
+  // which never gives two indices the same one
+  static long priority(int i) {
+    long z = i * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,121 @@
+// Represents dead-end filling: every dead end other than the start and the
+// target is walled off, one cell at a time, until only the cells on the
+// solution are left open. The filled cells are as big as the maze, so they
+// are kept by the given storage, and how many unfilled neighbours a cell has
+// is counted again from them when it is needed rather than kept per cell.
+class DeadEndFiller extends ASolver {
+  // Dead ends waiting to be filled
+  IntDeque deadEnds;
+  CellSet filled;
+
+  DeadEndFiller(MazeGrid grid, int start, int target) {
+    this(grid, start, target, MazeStorage.heap());
+  }
+
+  DeadEndFiller(MazeGrid grid, int start, int target, MazeStorage storage) {
+    super(grid, start, target);
+    this.deadEnds = new IntDeque(64);
+    this.filled = storage.cells(grid.size());
+    for (int cell = 0; cell < grid.size(); cell++) {
+      if (this.unfilledSides(cell) == 1 && cell != start && cell != target) {
+        this.deadEnds.addLast(cell);
+      }
+    }
+    if (this.isDone()) {
+      this.found = this.path().length > 0;
+    }
+  }
+
+  /*-
+   * Fields:
+   * ... this.deadEnds ... -- IntDeque
+   * ... this.filled ... -- CellSet
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.isDone() ... -- boolean
+   * ... this.frontierSize() ... -- int
+   * ... this.unfilledSides(int) ... -- int
+   * ... this.expand() ... -- int
+   * ... this.path() ... -- int[]
+   */
+
+  public String name() {
+    return "dead-end filling";
+  }
+
+  public boolean isDone() {
+    return this.deadEnds.isEmpty();
+  }
+
+  public int frontierSize() {
+    return this.deadEnds.size;
+  }
+
+  // Returns how many open sides of the given cell lead to unfilled cells
+  int unfilledSides(int cell) {
+    int open = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      if (this.grid.canMove(cell, dir) && !this.filled.contains(this.grid.neighbor(cell, dir))) {
+        open++;
+      }
+    }
+    return open;
+  }
+
+  // EFFECT: Fills the next dead end, which may turn its neighbour into one
+  int expand() {
+    if (this.isDone()) {
+      return -1;
+    }
+    int cell = this.deadEnds.removeFirst();
+    this.filled.add(cell);
+    this.expanded++;
+    for (int dir = 0; dir < 4; dir++) {
+      if (this.grid.canMove(cell, dir)) {
+        int next = this.grid.neighbor(cell, dir);
+        // Filling this cell takes its neighbour from two unfilled sides to
+        // one at most once
+        if (!this.filled.contains(next) && this.unfilledSides(next) == 1
+            && next != this.start && next != this.target) {
+          this.deadEnds.addLast(next);
+        }
+      }
+    }
+    if (this.isDone()) {
+      this.found = this.path().length > 0;
+    }
+    return cell;
+  }
+
+  // Returns the unfilled corridor from the start to the target, which is the
+  // solution once every dead end has been filled
+  public int[] path() {
+    if (!this.isDone()) {
+      return new int[0];
+    }
+    IntDeque walk = new IntDeque(64);
+    int cell = this.start;
+    int from = -1;
+    walk.addLast(cell);
+    while (cell != this.target) {
+      int next = -1;
+      for (int dir = 0; dir < 4 && next < 0; dir++) {
+        int n = this.grid.neighbor(cell, dir);
+        if (this.grid.canMove(cell, dir) && n != from && !this.filled.contains(n)) {
+          next = n;
+        }
+      }
+      if (next < 0 || walk.size > this.grid.size()) {
+        return new int[0];
+      }
+      from = cell;
+      cell = next;
+      walk.addLast(cell);
+    }
+    int[] path = new int[walk.size];
+    for (int i = 0; i < path.length; i++) {
+      path[i] = walk.get(i);
+    }
+    return path;
+  }
+}
@@ -0,0 +1,10 @@
+// Represents a depth first search from the start to the target
+class DepthFirstSolver extends FrontierSolver {
+  DepthFirstSolver(MazeGrid grid, int start, int target) {
+    super(grid, start, target, true);
+  }
+
+  DepthFirstSolver(MazeGrid grid, int start, int target, MazeStorage storage) {
+    super(grid, start, target, true, storage);
+  }
+}
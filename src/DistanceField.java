@@ -0,0 +1,119 @@
+// Represents how far every cell of a maze is from one target cell, and which
+// way to go from each cell to get there, found by a single breadth first
+// search from the target. Once built, the way to the target from any cell is
+// read off in time proportional to its length, without searching again.
+class DistanceField {
+  MazeGrid grid;
+  int target;
+  // Steps from each cell to the target, or -1 for cells that cannot reach it.
+  // The first step toward the target is to the one open neighbour a step
+  // nearer, so no direction needs keeping.
+  IntStore distance;
+  // The cells the search reached, nearest first, which is also its queue,
+  // and how many there are
+  IntStore order;
+  int reached;
+  // Searches a level at a time on bit rows of the walls when set, rather than
+  // a cell at a time from the queue
+  BitFrontierSearch bits;
+
+  DistanceField(MazeGrid grid, int target) {
+    this(grid, target, MazeStorage.heap());
+  }
+
+  DistanceField(MazeGrid grid, int target, MazeStorage storage) {
+    this(grid, target, storage, false);
+  }
+
+  DistanceField(MazeGrid grid, int target, MazeStorage storage, boolean bitParallel) {
+    this.grid = grid;
+    this.target = target;
+    this.distance = storage.ints(grid.size());
+    this.order = storage.ints(grid.size());
+    if (bitParallel) {
+      this.bits = new BitFrontierSearch(grid);
+    }
+    this.build();
+  }
+
+  /*-
+   * Fields:
+   * ... this.grid ... -- MazeGrid
+   * ... this.target ... -- int
+   * ... this.distance ... -- IntStore
+   * ... this.order ... -- IntStore
+   * ... this.reached ... -- int
+   * ... this.bits ... -- BitFrontierSearch
+   * Methods:
+   * ... this.build() ... -- void
+   * ... this.distanceFrom(int) ... -- int
+   * ... this.nextMove(int) ... -- int
+   * ... this.pathFrom(int) ... -- int[]
+   */
+
+  // EFFECT: Fills in the distance of every cell, searching outwards from the
+  // target, over again if the maze was made again
+  void build() {
+    if (this.bits != null) {
+      this.reached = this.bits.search(this.target, this.distance, this.order);
+      return;
+    }
+    IntStore distance = this.distance;
+    IntStore order = this.order;
+    distance.fill(-1);
+    distance.set(this.target, 0);
+    order.set(0, this.target);
+    this.reached = 1;
+    for (int i = 0; i < this.reached; i++) {
+      int cell = order.get(i);
+      int next = distance.get(cell) + 1;
+      for (int dir = 0; dir < 4; dir++) {
+        if (this.grid.canMove(cell, dir)) {
+          int n = this.grid.neighbor(cell, dir);
+          if (distance.get(n) < 0) {
+            distance.set(n, next);
+            order.set(this.reached++, n);
+          }
+        }
+      }
+    }
+  }
+
+  // Returns the number of steps from the given cell to the target, or -1 if
+  // it cannot reach the target
+  int distanceFrom(int cell) {
+    return this.distance.get(cell);
+  }
+
+  // Returns the direction of the first step from the given cell toward the
+  // target, as in MazeGrid, or -1 at the target or where there is no way
+  int nextMove(int cell) {
+    int nearer = this.distance.get(cell) - 1;
+    if (nearer < 0) {
+      return -1;
+    }
+    for (int dir = 0; dir < 4; dir++) {
+      if (this.grid.canMove(cell, dir)
+          && this.distance.get(this.grid.neighbor(cell, dir)) == nearer) {
+        return dir;
+      }
+    }
+    return -1;
+  }
+
+  // Returns the cells from the given cell to the target, both included, or
+  // no cells if the target cannot be reached from it
+  int[] pathFrom(int cell) {
+    int steps = this.distance.get(cell);
+    if (steps < 0) {
+      return new int[0];
+    }
+    int[] path = new int[steps + 1];
+    for (int i = 0; i < steps; i++) {
+      path[i] = cell;
+      cell = this.grid.neighbor(cell, this.nextMove(cell));
+    }
+    path[steps] = cell;
+    return path;
+  }
+}
@@ -0,0 +1,25 @@
+// Represents connections between the vertices, by their index in the grid
+class Edge {
+  int to;
+  int from;
+  int weight;
+
+  Edge(int weight, int to, int from) {
+    this.weight = weight;
+    this.to = to;
+    this.from = from;
+  }
+
+  /*-
+   * Fields:
+   * ... this.to ... -- int
+   * ... this.from ... -- int
+   * ... this.weight ... -- int
+   * Methods:
+   * ... this.compareTo(Edge) ... -- boolean
+   */
+
+  boolean compareTo(Edge e) {
+    return this.weight < e.weight;
+  }
+}
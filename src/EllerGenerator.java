@@ -0,0 +1,242 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+// Makes mazes one row of cells at a time with Eller's algorithm, handing each
+// finished row to a RowSink, so a maze of any height takes memory for only a
+// few rows. Within a row, cells are joined to the cell on their right at
+// random when they are not already connected, then every set of connected
+// cells opens at least one cell downwards, and the cells below that are not
+// reached from above start sets of their own. The last row joins every set
+// that is still apart.
+//
+// The rows are laid out as MazeGrid keeps them: width vertices across and
+// height down, with the cells of the last column and row closed off.
+class EllerGenerator implements MazeGenerator {
+  // Number of vertices across and down, as in MazeWorld
+  int width;
+  int height;
+  Random rand;
+  // The set of each cell of the current row, named by a number below the
+  // number of playable cells across
+  int[] sets;
+  // The sets of the next row, before they are renumbered
+  int[] below;
+  // The set each set was joined into this row, as a union-find over the names
+  UnionFind joins;
+  // How many cells of the current row are still to be decided for each set,
+  // and whether the set has opened downwards yet
+  int[] remaining;
+  boolean[] openedDown;
+  // Which names the cells of the next row already use
+  boolean[] taken;
+  // The bits of the current row, two per cell as in MazeGrid
+  long[] row;
+  // Random bits not used yet, taken 64 at a time, and how many are left
+  long coins;
+  int coinsLeft;
+
+  EllerGenerator(int width, int height) {
+    if (width < 2 || height < 2) {
+      throw new IllegalArgumentException("A maze needs at least 2 x 2 vertices, given "
+          + width + " x " + height);
+    }
+    this.width = width;
+    this.height = height;
+    this.rand = new Random();
+    int across = width - 1;
+    this.sets = new int[across];
+    this.below = new int[across];
+    this.joins = new UnionFind(across);
+    this.remaining = new int[across];
+    this.openedDown = new boolean[across];
+    this.taken = new boolean[across];
+    this.row = new long[(int) ((2L * width + 63) >>> 6)];
+  }
+
+  /*-
+   * Fields:
+   * ... this.width ... -- int
+   * ... this.height ... -- int
+   * ... this.rand ... -- Random
+   * ... this.sets ... -- int[]
+   * ... this.below ... -- int[]
+   * ... this.joins ... -- UnionFind
+   * ... this.remaining ... -- int[]
+   * ... this.openedDown ... -- boolean[]
+   * ... this.taken ... -- boolean[]
+   * ... this.row ... -- long[]
+   * ... this.coins ... -- long
+   * ... this.coinsLeft ... -- int
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.generate(long) ... -- MazeGrid
+   * ... this.generateInto(long, MazeGrid) ... -- MazeGrid
+   * ... this.generate(long, RowSink) ... -- void
+   * ... this.joinAcross(boolean) ... -- void
+   * ... this.openDown() ... -- void
+   * ... this.startNextRow() ... -- void
+   * ... this.setBit(int) ... -- void
+   * ... this.flip() ... -- boolean
+   * ... EllerGenerator.main(String[]) ... -- void
+   */
+
+  public String name() {
+    return "eller";
+  }
+
+  public MazeGrid generate(long seed) {
+    return this.generateInto(seed, new MazeGrid(this.width, this.height));
+  }
+
+  // Returns the given grid with the maze made from the given seed in it,
+  // written row by row as it is made
+  public MazeGrid generateInto(long seed, MazeGrid grid) {
+    try {
+      this.generate(seed, new GridSink(grid));
+    } catch (IOException e) {
+      // A grid in memory cannot fail to be written
+      throw new UncheckedIOException(e);
+    }
+    return grid;
+  }
+
+  // EFFECT: Makes a maze from the given seed, handing the sink every row
+  // from the top down, and closes the sink once it is done or has failed
+  void generate(long seed, RowSink sink) throws IOException {
+    int across = this.width - 1;
+    int rows = this.height - 1;
+    this.rand.setSeed(seed);
+    this.coinsLeft = 0;
+    try {
+      sink.start(this.width, this.height, seed, this.name());
+      for (int x = 0; x < across; x++) {
+        this.sets[x] = x;
+      }
+      for (int y = 0; y < rows; y++) {
+        for (int i = 0; i < this.row.length; i++) {
+          this.row[i] = 0;
+        }
+        boolean last = y == rows - 1;
+        this.joinAcross(last);
+        if (!last) {
+          this.openDown();
+        }
+        sink.row(y, this.row);
+        if (!last) {
+          this.startNextRow();
+        }
+      }
+      // The row of closed cells past the bottom border
+      for (int i = 0; i < this.row.length; i++) {
+        this.row[i] = 0;
+      }
+      sink.row(rows, this.row);
+      sink.finish();
+    } finally {
+      // A sink that failed part way still lets go of its file
+      sink.close();
+    }
+  }
+
+  // EFFECT: Opens the right side of cells whose neighbour is in another set,
+  // at random or always on the last row, joining the two sets
+  void joinAcross(boolean last) {
+    int across = this.width - 1;
+    this.joins.reset();
+    for (int x = 0; x + 1 < across; x++) {
+      if ((last || this.flip())
+          && this.joins.union(this.sets[x], this.sets[x + 1])) {
+        this.setBit(2 * x);
+      }
+    }
+    for (int x = 0; x < across; x++) {
+      this.sets[x] = this.joins.find(this.sets[x]);
+    }
+  }
+
+  // EFFECT: Opens the bottom of cells at random, and of the last cell of
+  // any set that has not opened downwards yet, carrying the set down
+  void openDown() {
+    int across = this.width - 1;
+    for (int x = 0; x < across; x++) {
+      this.remaining[x] = 0;
+      this.openedDown[x] = false;
+      this.taken[x] = false;
+    }
+    for (int x = 0; x < across; x++) {
+      this.remaining[this.sets[x]]++;
+    }
+    for (int x = 0; x < across; x++) {
+      int set = this.sets[x];
+      this.remaining[set]--;
+      if (this.flip() || (this.remaining[set] == 0 && !this.openedDown[set])) {
+        this.openedDown[set] = true;
+        this.setBit(2 * x + 1);
+        this.below[x] = set;
+        this.taken[set] = true;
+      } else {
+        this.below[x] = -1;
+      }
+    }
+  }
+
+  // EFFECT: Moves on to the next row, where the cells not reached from above
+  // start new sets under names no other cell uses
+  void startNextRow() {
+    int across = this.width - 1;
+    int free = 0;
+    for (int x = 0; x < across; x++) {
+      if (this.below[x] >= 0) {
+        this.sets[x] = this.below[x];
+      } else {
+        while (this.taken[free]) {
+          free++;
+        }
+        this.taken[free] = true;
+        this.sets[x] = free;
+      }
+    }
+  }
+
+  // EFFECT: Sets the given bit of the current row
+  void setBit(int bit) {
+    this.row[bit >>> 6] |= 1L << bit;
+  }
+
+  // Returns a random true or false
+  // EFFECT: Uses up one of the random bits, taking 64 more when none are left
+  boolean flip() {
+    if (this.coinsLeft == 0) {
+      this.coins = this.rand.nextLong();
+      this.coinsLeft = 64;
+    }
+    this.coinsLeft--;
+    boolean heads = (this.coins & 1) != 0;
+    this.coins >>>= 1;
+    return heads;
+  }
+
+  // EFFECT: Makes the maze given on the command line, writing it to a maze
+  // file if one is given and printing its checksum
+  //
+  //   java EllerGenerator width height seed [file]
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3 || args.length > 4) {
+      System.err.println("usage: java EllerGenerator width height seed [file]");
+      System.exit(2);
+    }
+    EllerGenerator eller = new EllerGenerator(Integer.parseInt(args[0]),
+        Integer.parseInt(args[1]));
+    ChecksumSink checksum = new ChecksumSink();
+    RowSink sink = checksum;
+    if (args.length == 4) {
+      sink = new TeeSink(new MazeFileSink(new File(args[3])), checksum);
+    }
+    long before = System.nanoTime();
+    eller.generate(Long.parseLong(args[2]), sink);
+    System.out.println(String.format("%d x %d maze in %.1f ms, checksum %08x", eller.width,
+        eller.height, (System.nanoTime() - before) / 1e6, checksum.value()));
+  }
+}
@@ -0,0 +1,93 @@
+// Represents a breadth or depth first search. Each step is constant time: the
+// frontier is a ring buffer, the cells already visited are a bitset, and the
+// predecessors are kept in an int array. The bitset and the predecessors are
+// as big as the maze, so they are kept by the given storage.
+class FrontierSolver extends ASolver {
+  // The frontier is used as a stack if true, and a queue otherwise
+  boolean depthFirst;
+  IntDeque frontier;
+  // A breadth first search marks cells when they join the frontier, a depth
+  // first search when they leave it
+  CellSet visited;
+  // The cell each visited cell was reached from
+  IntStore previous;
+
+  FrontierSolver(MazeGrid grid, int start, int target, boolean depthFirst) {
+    this(grid, start, target, depthFirst, MazeStorage.heap());
+  }
+
+  FrontierSolver(MazeGrid grid, int start, int target, boolean depthFirst,
+      MazeStorage storage) {
+    super(grid, start, target);
+    this.depthFirst = depthFirst;
+    this.frontier = new IntDeque(64);
+    this.visited = storage.cells(grid.size());
+    this.previous = storage.ints(grid.size());
+    this.previous.set(start, start);
+    this.frontier.addLast(start);
+    if (!depthFirst) {
+      this.visited.add(start);
+    }
+  }
+
+  /*-
+   * Fields:
+   * ... this.depthFirst ... -- boolean
+   * ... this.frontier ... -- IntDeque
+   * ... this.visited ... -- CellSet
+   * ... this.previous ... -- IntStore
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.isDone() ... -- boolean
+   * ... this.frontierSize() ... -- int
+   * ... this.expand() ... -- int
+   * ... this.path() ... -- int[]
+   */
+
+  public String name() {
+    return this.depthFirst ? "depth first" : "breadth first";
+  }
+
+  public boolean isDone() {
+    return this.found || this.frontier.isEmpty();
+  }
+
+  public int frontierSize() {
+    return this.frontier.size;
+  }
+
+  // EFFECT: Takes the next cell off the frontier and adds its unvisited
+  // neighbours
+  int expand() {
+    while (!this.isDone()) {
+      int cell = this.depthFirst ? this.frontier.removeLast() : this.frontier.removeFirst();
+      if (this.depthFirst && !this.visited.add(cell)) {
+        // Already expanded through another neighbour
+        continue;
+      }
+      this.expanded++;
+      if (cell == this.target) {
+        this.found = true;
+        return cell;
+      }
+      for (int dir : SEARCH_ORDER) {
+        if (this.grid.canMove(cell, dir)) {
+          int next = this.grid.neighbor(cell, dir);
+          if (!this.visited.contains(next)) {
+            if (!this.depthFirst) {
+              this.visited.add(next);
+            }
+            this.previous.set(next, cell);
+            this.frontier.addLast(next);
+          }
+        }
+      }
+      return cell;
+    }
+    return -1;
+  }
+
+  public int[] path() {
+    return this.found ? this.pathFrom(this.previous, this.target) : new int[0];
+  }
+}
@@ -0,0 +1,50 @@
+import java.io.IOException;
+
+// Represents filling a MazeGrid with the maze as it is made, to be drawn or
+// played, either a new grid from the given storage or a grid given to fill
+class GridSink extends PackedRowSink {
+  MazeStorage storage;
+  MazeGrid grid;
+  // The next word of the grid to fill
+  int next;
+
+  GridSink() {
+    this(MazeStorage.heap());
+  }
+
+  GridSink(MazeStorage storage) {
+    this.storage = storage;
+  }
+
+  // Writes into the given grid, which must be the size of the maze
+  GridSink(MazeGrid grid) {
+    this.grid = grid;
+  }
+
+  /*-
+   * Fields:
+   * ... this.storage ... -- MazeStorage
+   * ... this.grid ... -- MazeGrid
+   * ... this.next ... -- int
+   * Methods:
+   * ... this.start(int, int, long, String) ... -- void
+   * ... this.word(long) ... -- void
+   * ... this.done() ... -- void
+   */
+
+  public void start(int width, int height, long seed, String generator) throws IOException {
+    super.start(width, height, seed, generator);
+    if (this.storage != null) {
+      this.grid = this.storage.grid(width, height);
+    }
+    this.next = 0;
+  }
+
+  void word(long w) {
+    this.grid.setWord(this.next++, w);
+  }
+
+  void done() {
+    // Every word is already in the grid
+  }
+}
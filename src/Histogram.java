@@ -0,0 +1,64 @@
+// Represents counts of values in buckets by powers of two: bucket 0 holds 0,
+// and bucket b the values from 2^(b - 1) up to 2^b - 1. Percentiles are read
+// as the top of their bucket, so they are at most twice too high.
+class Histogram {
+  long[] buckets;
+  long count;
+  long sum;
+  long max;
+
+  Histogram() {
+    this.buckets = new long[64];
+  }
+
+  /*-
+   * Fields:
+   * ... this.buckets ... -- long[]
+   * ... this.count ... -- long
+   * ... this.sum ... -- long
+   * ... this.max ... -- long
+   * Methods:
+   * ... this.record(long) ... -- void
+   * ... this.mean() ... -- double
+   * ... this.percentile(double) ... -- long
+   * ... this.reset() ... -- void
+   */
+
+  // EFFECT: Counts the given value, taking negative ones as 0
+  void record(long value) {
+    value = Math.max(0, value);
+    this.buckets[64 - Long.numberOfLeadingZeros(value)]++;
+    this.count++;
+    this.sum += value;
+    this.max = Math.max(this.max, value);
+  }
+
+  // Returns the mean of the values counted, or 0 if there are none
+  double mean() {
+    return this.count == 0 ? 0 : (double) this.sum / this.count;
+  }
+
+  // Returns a value at least as big as the given share of the values
+  // counted, and no bigger than the biggest of them
+  long percentile(double share) {
+    long rank = (long) Math.ceil(share * this.count);
+    long seen = 0;
+    for (int b = 0; b < this.buckets.length; b++) {
+      seen += this.buckets[b];
+      if (seen >= rank && seen > 0) {
+        return b == 0 ? 0 : Math.min(this.max, (1L << b) - 1);
+      }
+    }
+    return this.max;
+  }
+
+  // EFFECT: Forgets every value counted
+  void reset() {
+    for (int b = 0; b < this.buckets.length; b++) {
+      this.buckets[b] = 0;
+    }
+    this.count = 0;
+    this.sum = 0;
+    this.max = 0;
+  }
+}
@@ -0,0 +1,101 @@
+// Represents a double ended queue of ints, kept in a ring buffer that doubles
+// in size when it fills up
+class IntDeque {
+  int[] elements;
+  // Index of the first element
+  int head;
+  int size;
+
+  IntDeque(int capacity) {
+    int length = 16;
+    while (length < capacity) {
+      length *= 2;
+    }
+    this.elements = new int[length];
+    this.head = 0;
+    this.size = 0;
+  }
+
+  /*-
+   * Fields:
+   * ... this.elements ... -- int[]
+   * ... this.head ... -- int
+   * ... this.size ... -- int
+   * Methods:
+   * ... this.isEmpty() ... -- boolean
+   * ... this.addFirst(int) ... -- void
+   * ... this.addLast(int) ... -- void
+   * ... this.removeFirst() ... -- int
+   * ... this.removeLast() ... -- int
+   * ... this.get(int) ... -- int
+   * ... this.clear() ... -- void
+   * ... this.grow() ... -- void
+   */
+
+  // Is this deque empty?
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // EFFECT: Adds the given value to the front of this deque
+  void addFirst(int value) {
+    if (this.size == this.elements.length) {
+      this.grow();
+    }
+    this.head = (this.head - 1) & (this.elements.length - 1);
+    this.elements[this.head] = value;
+    this.size++;
+  }
+
+  // EFFECT: Adds the given value to the back of this deque
+  void addLast(int value) {
+    if (this.size == this.elements.length) {
+      this.grow();
+    }
+    this.elements[(this.head + this.size) & (this.elements.length - 1)] = value;
+    this.size++;
+  }
+
+  // Returns the value at the front of this deque
+  // EFFECT: Removes that value
+  int removeFirst() {
+    if (this.size == 0) {
+      throw new IllegalStateException("IntDeque is empty");
+    }
+    int value = this.elements[this.head];
+    this.head = (this.head + 1) & (this.elements.length - 1);
+    this.size--;
+    return value;
+  }
+
+  // Returns the value at the back of this deque
+  // EFFECT: Removes that value
+  int removeLast() {
+    if (this.size == 0) {
+      throw new IllegalStateException("IntDeque is empty");
+    }
+    this.size--;
+    return this.elements[(this.head + this.size) & (this.elements.length - 1)];
+  }
+
+  // Returns the i-th value from the front of this deque
+  int get(int i) {
+    return this.elements[(this.head + i) & (this.elements.length - 1)];
+  }
+
+  // EFFECT: Removes every value, keeping the buffer for reuse
+  void clear() {
+    this.head = 0;
+    this.size = 0;
+  }
+
+  // EFFECT: Doubles the buffer, moving the values to the start of it
+  void grow() {
+    int[] bigger = new int[this.elements.length * 2];
+    for (int i = 0; i < this.size; i++) {
+      bigger[i] = this.get(i);
+    }
+    this.elements = bigger;
+    this.head = 0;
+  }
+}
@@ -0,0 +1,74 @@
+import java.nio.IntBuffer;
+
+// Represents an array of ints kept either on the heap or in buffers outside
+// it, such as direct memory or files mapped into memory. A buffer holds at
+// most 2 GB, so off the heap the ints are split into chunks of CHUNK each.
+class IntStore {
+  // The ints on the heap, or null if they are in chunks
+  int[] array;
+  IntBuffer[] chunks;
+  int length;
+
+  // Ints in each chunk, a power of two
+  static final int CHUNK_SHIFT = 27;
+  static final int CHUNK = 1 << CHUNK_SHIFT;
+
+  IntStore(int length) {
+    this.array = new int[length];
+    this.length = length;
+  }
+
+  IntStore(IntBuffer[] chunks, int length) {
+    this.chunks = chunks;
+    this.length = length;
+  }
+
+  /*-
+   * Fields:
+   * ... this.array ... -- int[]
+   * ... this.chunks ... -- IntBuffer[]
+   * ... this.length ... -- int
+   * Methods:
+   * ... this.get(int) ... -- int
+   * ... this.set(int, int) ... -- void
+   * ... this.fill(int) ... -- void
+   * ... IntStore.chunksFor(int) ... -- int
+   */
+
+  // Returns how many chunks hold the given number of ints off the heap
+  static int chunksFor(int length) {
+    return (int) (((long) length + CHUNK - 1) >>> CHUNK_SHIFT);
+  }
+
+  // Returns the int at the given index
+  int get(int i) {
+    if (this.array != null) {
+      return this.array[i];
+    }
+    return this.chunks[i >>> CHUNK_SHIFT].get(i & (CHUNK - 1));
+  }
+
+  // EFFECT: Sets the int at the given index
+  void set(int i, int value) {
+    if (this.array != null) {
+      this.array[i] = value;
+    } else {
+      this.chunks[i >>> CHUNK_SHIFT].put(i & (CHUNK - 1), value);
+    }
+  }
+
+  // EFFECT: Sets every int to the given value
+  void fill(int value) {
+    if (this.array != null) {
+      for (int i = 0; i < this.length; i++) {
+        this.array[i] = value;
+      }
+      return;
+    }
+    for (IntBuffer chunk : this.chunks) {
+      for (int i = 0; i < chunk.capacity(); i++) {
+        chunk.put(i, value);
+      }
+    }
+  }
+}
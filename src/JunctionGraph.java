@@ -0,0 +1,167 @@
+// Represents a maze with its corridors squeezed out: the nodes are the
+// junctions and dead ends, plus the start and the target, and each edge is a
+// corridor of cells with exactly two open sides between two nodes, weighted
+// by its length. Searching the nodes does the work of searching the cells
+// divided by the average corridor length, and the cells of a corridor are only
+// walked again when they are drawn.
+//
+// The edges of each node are kept together in one array, each node's from
+// first[node] up to first[node + 1], so the graph takes a few ints per node
+// and per corridor end, kept like the node of each cell by the given storage.
+// The edges of a node leave it through its open sides in direction order, so
+// the direction of an edge is found from its place among them.
+class JunctionGraph {
+  MazeGrid grid;
+  int start;
+  int target;
+  MazeStorage storage;
+  // The node of each cell, or -1 for cells inside a corridor or out of the maze
+  IntStore nodeOf;
+  // The cell of each node
+  IntStore cellOf;
+  // Where the edges of each node start
+  IntStore first;
+  // For each edge: the node at its far end, and how many steps long it is
+  IntStore to;
+  IntStore length;
+  // How many steps the last corridor followed took. It is only read while
+  // building, so solvers on several threads may follow corridors of one
+  // built graph at once.
+  int walked;
+
+  JunctionGraph(MazeGrid grid, int start, int target) {
+    this(grid, start, target, MazeStorage.heap());
+  }
+
+  JunctionGraph(MazeGrid grid, int start, int target, MazeStorage storage) {
+    this.grid = grid;
+    this.start = start;
+    this.target = target;
+    this.storage = storage;
+    this.build();
+  }
+
+  /*-
+   * Fields:
+   * ... this.grid ... -- MazeGrid
+   * ... this.start ... -- int
+   * ... this.target ... -- int
+   * ... this.storage ... -- MazeStorage
+   * ... this.nodeOf ... -- IntStore
+   * ... this.cellOf ... -- IntStore
+   * ... this.first ... -- IntStore
+   * ... this.to ... -- IntStore
+   * ... this.length ... -- IntStore
+   * ... this.walked ... -- int
+   * Methods:
+   * ... this.build() ... -- void
+   * ... this.openSides(int) ... -- int
+   * ... this.nodeCount() ... -- int
+   * ... this.edgeCount() ... -- int
+   * ... this.follow(int, int, IntDeque) ... -- int
+   * ... this.leaves(int, int) ... -- int
+   * ... this.corridor(int, int, IntDeque) ... -- void
+   */
+
+  // EFFECT: Finds the nodes, then walks every corridor out of each of them
+  void build() {
+    int size = this.grid.size();
+    this.nodeOf = this.storage.ints(size);
+    int nodes = 0;
+    int ends = 0;
+    for (int cell = 0; cell < size; cell++) {
+      int open = this.openSides(cell);
+      if ((open != 0 && open != 2) || cell == this.start || cell == this.target) {
+        this.nodeOf.set(cell, nodes++);
+        ends += open;
+      } else {
+        this.nodeOf.set(cell, -1);
+      }
+    }
+    this.cellOf = this.storage.ints(nodes);
+    this.first = this.storage.ints(nodes + 1);
+    this.to = this.storage.ints(ends);
+    this.length = this.storage.ints(ends);
+    int edge = 0;
+    for (int cell = 0; cell < size; cell++) {
+      int node = this.nodeOf.get(cell);
+      if (node < 0) {
+        continue;
+      }
+      this.cellOf.set(node, cell);
+      this.first.set(node, edge);
+      for (int dir = 0; dir < 4; dir++) {
+        if (this.grid.canMove(cell, dir)) {
+          this.to.set(edge, this.nodeOf.get(this.follow(cell, dir, null)));
+          this.length.set(edge, this.walked);
+          edge++;
+        }
+      }
+    }
+    this.first.set(nodes, edge);
+  }
+
+  // Returns how many sides of the given cell are open
+  int openSides(int cell) {
+    int open = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      if (this.grid.canMove(cell, dir)) {
+        open++;
+      }
+    }
+    return open;
+  }
+
+  // Returns the number of junctions and dead ends
+  int nodeCount() {
+    return this.cellOf.length;
+  }
+
+  // Returns the number of edges, two for each corridor, one from either end
+  int edgeCount() {
+    return this.to.length;
+  }
+
+  // Returns the node cell reached by leaving the given cell in the given
+  // open direction and keeping on down the corridor
+  // EFFECT: Sets walked to the number of steps taken, and adds every cell
+  // stepped into to the given cells, if there are any
+  int follow(int cell, int dir, IntDeque cells) {
+    int steps = 0;
+    while (true) {
+      cell = this.grid.neighbor(cell, dir);
+      steps++;
+      if (cells != null) {
+        cells.addLast(cell);
+      }
+      if (this.nodeOf.get(cell) >= 0) {
+        this.walked = steps;
+        return cell;
+      }
+      // Take the one open side that does not lead back
+      int back = (dir + 2) & 3;
+      dir = 0;
+      while (dir == back || !this.grid.canMove(cell, dir)) {
+        dir++;
+      }
+    }
+  }
+
+  // Returns the direction the given edge of the given node leaves it in: the
+  // open side of the node's cell as far along as the edge is among its edges
+  int leaves(int node, int edge) {
+    int cell = this.cellOf.get(node);
+    int skip = edge - this.first.get(node);
+    int dir = 0;
+    while (!this.grid.canMove(cell, dir) || skip-- > 0) {
+      dir++;
+    }
+    return dir;
+  }
+
+  // EFFECT: Adds the cells of the given edge of the given node to the given
+  // cells, from the first cell after the node to the node at the far end
+  void corridor(int node, int edge, IntDeque cells) {
+    this.follow(this.cellOf.get(node), this.leaves(node, edge), cells);
+  }
+}
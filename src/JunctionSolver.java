@@ -0,0 +1,153 @@
+// Represents a breadth or depth first search over the junctions and dead
+// ends of a JunctionGraph instead of over every cell, taking a whole corridor
+// in one step. The corridors are only walked cell by cell to draw them: the
+// ones a step discovers when it is animated, and the path once it is found.
+// The visited nodes and the predecessors are kept by the given storage, like
+// the graph.
+class JunctionSolver extends ASolver {
+  JunctionGraph graph;
+  // The frontier is used as a stack if true, and a queue otherwise
+  boolean depthFirst;
+  IntDeque frontier;
+  // A breadth first search marks nodes when they join the frontier, a depth
+  // first search when they leave it
+  CellSet visited;
+  // The node each visited node was reached from, and the edge taken
+  IntStore previous;
+  IntStore through;
+  // The cells of the corridors the last step discovered
+  IntDeque discovered;
+
+  JunctionSolver(JunctionGraph graph, boolean depthFirst) {
+    this(graph, depthFirst, MazeStorage.heap());
+  }
+
+  JunctionSolver(JunctionGraph graph, boolean depthFirst, MazeStorage storage) {
+    super(graph.grid, graph.start, graph.target);
+    this.graph = graph;
+    this.depthFirst = depthFirst;
+    int nodes = graph.nodeCount();
+    this.frontier = new IntDeque(64);
+    this.visited = storage.cells(nodes);
+    this.previous = storage.ints(nodes);
+    this.through = storage.ints(nodes);
+    this.discovered = new IntDeque(64);
+    int first = graph.nodeOf.get(graph.start);
+    this.previous.set(first, first);
+    this.frontier.addLast(first);
+    if (!depthFirst) {
+      this.visited.add(first);
+    }
+  }
+
+  /*-
+   * Fields:
+   * ... this.graph ... -- JunctionGraph
+   * ... this.depthFirst ... -- boolean
+   * ... this.frontier ... -- IntDeque
+   * ... this.visited ... -- CellSet
+   * ... this.previous ... -- IntStore
+   * ... this.through ... -- IntStore
+   * ... this.discovered ... -- IntDeque
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.isDone() ... -- boolean
+   * ... this.frontierSize() ... -- int
+   * ... this.expand() ... -- int
+   * ... this.step() ... -- int
+   * ... this.corridorsFrom(int, IntDeque) ... -- void
+   * ... this.path() ... -- int[]
+   */
+
+  public String name() {
+    return this.depthFirst ? "junction depth first" : "junction breadth first";
+  }
+
+  public boolean isDone() {
+    return this.found || this.frontier.isEmpty();
+  }
+
+  public int frontierSize() {
+    return this.frontier.size;
+  }
+
+  // EFFECT: Takes the next node off the frontier and adds the unvisited
+  // nodes at the far end of its corridors
+  int expand() {
+    while (!this.isDone()) {
+      int node = this.depthFirst ? this.frontier.removeLast() : this.frontier.removeFirst();
+      if (this.depthFirst && !this.visited.add(node)) {
+        // Already expanded through another corridor
+        continue;
+      }
+      this.expanded++;
+      int cell = this.graph.cellOf.get(node);
+      if (cell == this.target) {
+        this.found = true;
+        return cell;
+      }
+      int last = this.graph.first.get(node + 1);
+      for (int e = this.graph.first.get(node); e < last; e++) {
+        int next = this.graph.to.get(e);
+        if (!this.visited.contains(next)) {
+          if (!this.depthFirst) {
+            this.visited.add(next);
+          }
+          this.previous.set(next, node);
+          this.through.set(next, e);
+          this.frontier.addLast(next);
+        }
+      }
+      return cell;
+    }
+    return -1;
+  }
+
+  // EFFECT: Does the next unit of work, then walks the corridors it
+  // discovered into discovered, outside the solver's time
+  public int step() {
+    int cell = super.step();
+    this.discovered.clear();
+    if (cell >= 0 && !this.found) {
+      this.corridorsFrom(cell, this.discovered);
+    }
+    return cell;
+  }
+
+  // EFFECT: Adds to the given cells the corridors from the node at the given
+  // cell to the nodes it was the one to reach
+  void corridorsFrom(int cell, IntDeque cells) {
+    int node = this.graph.nodeOf.get(cell);
+    int last = this.graph.first.get(node + 1);
+    for (int e = this.graph.first.get(node); e < last; e++) {
+      int next = this.graph.to.get(e);
+      if (this.previous.get(next) == node && this.through.get(next) == e) {
+        this.graph.corridor(node, e, cells);
+      }
+    }
+  }
+
+  public int[] path() {
+    if (!this.found) {
+      return new int[0];
+    }
+    IntDeque nodes = new IntDeque(64);
+    int n = this.graph.nodeOf.get(this.target);
+    nodes.addFirst(n);
+    while (this.previous.get(n) != n) {
+      n = this.previous.get(n);
+      nodes.addFirst(n);
+    }
+    IntDeque cells = new IntDeque(64);
+    cells.addLast(this.start);
+    for (int i = 1; i < nodes.size; i++) {
+      n = nodes.get(i);
+      this.graph.corridor(this.previous.get(n), this.through.get(n), cells);
+    }
+    int[] path = new int[cells.size];
+    for (int i = 0; i < path.length; i++) {
+      path[i] = cells.get(i);
+    }
+    return path;
+  }
+}
@@ -0,0 +1,280 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+// Makes mazes with Kruskal's algorithm, away from any window. The walls are a
+// spanning tree over the vertices, the corners where walls meet, and the
+// cells of the maze sit between them, so only the top left
+// (width - 1) x (height - 1) cells of the grid are playable. Every maze is
+// made from a seed with this generator's own Random, so generators on
+// different threads never share one and the same seed always makes the same
+// maze. The union-find and the edge order take about 16 bytes a vertex, so
+// they are kept by the given storage.
+class KruskalGenerator implements MazeGenerator {
+  // Number of vertices across and down
+  int width;
+  int height;
+  // The maze being made
+  MazeGrid grid;
+  // Represents the sets of vertices already joined by the tree
+  UnionFind sets;
+  ArrayList<Edge> initialEdges;
+  // Every edge encoded as 2 * from + (0 for right, 1 for down), in the order
+  // Kruskal's algorithm visits them when bucketedEdges is set
+  IntStore edgeOrder;
+  // Generate by bucketing encoded edges instead of sorting Edge objects
+  boolean bucketedEdges;
+  Random rand;
+  // The random weights of the edges, and where each weight starts in
+  // edgeOrder, kept from one maze to the next
+  Random weights;
+  int[] starts;
+  // How long the last maze took to order its edges and to build its walls,
+  // in nanoseconds, and how many edges were tried in the union-find
+  long orderNanos;
+  long wallsNanos;
+  long edgesTried;
+  // Where the union-find and the edge order are kept
+  MazeStorage storage;
+
+  // Edge weights range from 0 up to this
+  static final int EDGE_WEIGHTS = 50;
+  // An edge is encoded as 2 * from + 1 at most in an int, so a maze has at
+  // most this many vertices
+  static final long MAX_VERTICES = 1L << 30;
+
+  KruskalGenerator(int width, int height) {
+    this(width, height, MazeStorage.heap());
+  }
+
+  KruskalGenerator(int width, int height, MazeStorage storage) {
+    if (width < 2 || height < 2 || (long) width * height > MAX_VERTICES) {
+      throw new IllegalArgumentException("Kruskal's algorithm needs from 2 x 2 up to "
+          + MAX_VERTICES + " vertices, given " + width + " x " + height);
+    }
+    this.width = width;
+    this.height = height;
+    this.initialEdges = new ArrayList<Edge>();
+    this.bucketedEdges = true;
+    this.rand = new Random();
+    this.weights = new Random();
+    this.starts = new int[EDGE_WEIGHTS + 1];
+    this.storage = storage;
+  }
+
+  /*-
+   * Fields:
+   * ... this.width ... -- int
+   * ... this.height ... -- int
+   * ... this.grid ... -- MazeGrid
+   * ... this.sets ... -- UnionFind
+   * ... this.initialEdges ... -- ArrayList<Edge>
+   * ... this.edgeOrder ... -- IntStore
+   * ... this.bucketedEdges ... -- boolean
+   * ... this.rand ... -- Random
+   * ... this.weights ... -- Random
+   * ... this.starts ... -- int[]
+   * ... this.orderNanos ... -- long
+   * ... this.wallsNanos ... -- long
+   * ... this.edgesTried ... -- long
+   * ... this.storage ... -- MazeStorage
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.generate(long) ... -- MazeGrid
+   * ... this.generateInto(long, MazeGrid) ... -- MazeGrid
+   * ... this.generateAdjacent() ... -- void
+   * ... this.edgeCount() ... -- long
+   * ... this.orderEdges(long) ... -- void
+   * ... this.addWall(int, int) ... -- void
+   * ... this.addBorders() ... -- void
+   * ... this.closeBorders() ... -- void
+   * ... this.buildWalls() ... -- void
+   * ... this.initMap() ... -- void
+   */
+
+  // Returns the name saved with the mazes this makes; the two ways of ordering
+  // the edges make different mazes from the same seed
+  public String name() {
+    return this.bucketedEdges ? "kruskal" : "kruskal-sorted";
+  }
+
+  // Returns a new maze made from the given seed
+  public MazeGrid generate(long seed) {
+    return this.generateInto(seed, new MazeGrid(this.width, this.height));
+  }
+
+  // Returns the given grid, of this generator's size, with the maze made
+  // from the given seed in it instead. With bucketed edges, once the first
+  // maze is made this reuses every buffer, so making more allocates nothing.
+  public MazeGrid generateInto(long seed, MazeGrid grid) {
+    long before = System.nanoTime();
+    this.grid = grid;
+    this.initialEdges.clear();
+    this.rand.setSeed(seed);
+    if (this.bucketedEdges) {
+      this.orderEdges(this.rand.nextLong());
+    } else {
+      this.generateAdjacent();
+    }
+    long ordered = System.nanoTime();
+    this.initMap();
+    this.buildWalls();
+    this.orderNanos = ordered - before;
+    this.wallsNanos = System.nanoTime() - ordered;
+    return this.grid;
+  }
+
+  // EFFECT: Intializes the down and right edges between vertices
+  void generateAdjacent() {
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        int v = this.grid.index(j, i);
+        if (i < this.height - 1) {
+          this.initialEdges.add(new Edge(this.rand.nextInt(EDGE_WEIGHTS), v + this.width, v));
+        }
+        if (j < this.width - 1) {
+          this.initialEdges.add(new Edge(this.rand.nextInt(EDGE_WEIGHTS), v + 1, v));
+        }
+      }
+    }
+    Collections.sort(this.initialEdges, new EdgeComparator());
+  }
+
+  // Returns how many edges there are between the vertices
+  long edgeCount() {
+    return 2L * this.width * this.height - this.width - this.height;
+  }
+
+  // EFFECT: Fills edgeOrder with every edge, ordered by a random weight like
+  // generateAdjacent but without making Edge objects. The weights are counted
+  // in one pass and placed in a second one that replays the same random
+  // numbers from the given seed, so this takes linear time and only the
+  // edgeOrder array.
+  void orderEdges(long seed) {
+    // Below MAX_VERTICES vertices the edges fit in an int
+    int count = (int) this.edgeCount();
+    if (this.edgeOrder == null || this.edgeOrder.length != count) {
+      this.edgeOrder = this.storage.ints(count);
+    }
+    int[] starts = this.starts;
+    Arrays.fill(starts, 0);
+    IntStore order = this.edgeOrder;
+    Random weights = this.weights;
+    weights.setSeed(seed);
+    for (int i = 0; i < count; i++) {
+      starts[weights.nextInt(EDGE_WEIGHTS) + 1]++;
+    }
+    for (int w = 1; w <= EDGE_WEIGHTS; w++) {
+      starts[w] += starts[w - 1];
+    }
+
+    weights.setSeed(seed);
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        int v = this.grid.index(j, i);
+        if (i < this.height - 1) {
+          order.set(starts[weights.nextInt(EDGE_WEIGHTS)]++, 2 * v + 1);
+        }
+        if (j < this.width - 1) {
+          order.set(starts[weights.nextInt(EDGE_WEIGHTS)]++, 2 * v);
+        }
+      }
+    }
+  }
+
+  // EFFECT: Turns the edge between the two given vertices into a wall,
+  // closing the side of the cell it runs along
+  void addWall(int from, int to) {
+    int x = this.grid.xOf(from);
+    int y = this.grid.yOf(from);
+    if (to == from + this.width) {
+      // A vertical wall is the left side of the cell at from
+      if (x > 0) {
+        this.grid.setRight(from - 1, false);
+      }
+    } else if (y > 0) {
+      // A horizontal wall is the top side of the cell at from
+      this.grid.setDown(from - this.width, false);
+    }
+  }
+
+  // EFFECT: Adds the borders of the entire maze to the walls, joining all of
+  // their vertices in the sets field
+  void addBorders() {
+    this.closeBorders();
+    for (int x = 0; x < this.width - 1; x++) {
+      int top = this.grid.index(x, 0);
+      int bottom = this.grid.index(x, this.height - 1);
+      this.sets.union(top, top + 1);
+      this.sets.union(bottom, bottom + 1);
+    }
+    for (int y = 0; y < this.height - 1; y++) {
+      int left = this.grid.index(0, y);
+      int right = this.grid.index(this.width - 1, y);
+      this.sets.union(left, left + this.width);
+      this.sets.union(right, right + this.width);
+    }
+  }
+
+  // EFFECT: Adds the borders of the entire maze to the walls. The cells past
+  // the bottom and right borders are not part of the maze, so they are closed
+  // off as well.
+  void closeBorders() {
+    for (int x = 0; x < this.width - 1; x++) {
+      int top = this.grid.index(x, 0);
+      int bottom = this.grid.index(x, this.height - 1);
+      this.addWall(top, top + 1);
+      this.addWall(bottom, bottom + 1);
+      this.grid.setRight(bottom, false);
+    }
+    for (int y = 0; y < this.height - 1; y++) {
+      int left = this.grid.index(0, y);
+      int right = this.grid.index(this.width - 1, y);
+      this.addWall(left, left + this.width);
+      this.addWall(right, right + this.width);
+      this.grid.setDown(right, false);
+    }
+  }
+
+  // EFFECT: Applies Kriskals algorithm to the list of edges, generating a tree
+  // of walls
+  void buildWalls() {
+    this.grid.openAll();
+    this.addBorders();
+    int tried = 0;
+    if (this.bucketedEdges) {
+      for (; tried < this.edgeOrder.length && this.sets.components > 1; tried++) {
+        int code = this.edgeOrder.get(tried);
+        int from = code >>> 1;
+        int to = (code & 1) == 0 ? from + 1 : from + this.width;
+        if (this.sets.union(from, to)) {
+          this.addWall(from, to);
+        }
+      }
+      this.edgesTried = tried;
+      return;
+    }
+    for (Edge origin : this.initialEdges) {
+      if (this.sets.components == 1) {
+        break;
+      }
+      tried++;
+      if (this.sets.union(origin.to, origin.from)) {
+        this.addWall(origin.from, origin.to);
+      }
+    }
+    this.edgesTried = tried;
+  }
+
+  // EFFECT: Puts every vertex in a set of its own
+  void initMap() {
+    if (this.sets == null) {
+      this.sets = this.storage.offHeap
+          ? new StoreUnionFind(this.width * this.height, this.storage)
+          : new UnionFind(this.width * this.height);
+    } else {
+      this.sets.reset();
+    }
+  }
+}
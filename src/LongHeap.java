@@ -0,0 +1,77 @@
+import java.util.Arrays;
+
+// Represents a binary min heap of longs
+class LongHeap {
+  long[] elements;
+  int size;
+
+  LongHeap(int capacity) {
+    this.elements = new long[Math.max(capacity, 1)];
+    this.size = 0;
+  }
+
+  /*-
+   * Fields:
+   * ... this.elements ... -- long[]
+   * ... this.size ... -- int
+   * Methods:
+   * ... this.isEmpty() ... -- boolean
+   * ... this.add(long) ... -- void
+   * ... this.removeMin() ... -- long
+   * ... this.clear() ... -- void
+   */
+
+  // Is this heap empty?
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // EFFECT: Adds the given value, sifting it up to its place
+  void add(long value) {
+    if (this.size == this.elements.length) {
+      this.elements = Arrays.copyOf(this.elements, this.size * 2);
+    }
+    int i = this.size++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (this.elements[parent] <= value) {
+        break;
+      }
+      this.elements[i] = this.elements[parent];
+      i = parent;
+    }
+    this.elements[i] = value;
+  }
+
+  // Returns the smallest value
+  // EFFECT: Removes that value, sifting the last one down into its place
+  long removeMin() {
+    if (this.size == 0) {
+      throw new IllegalStateException("LongHeap is empty");
+    }
+    long min = this.elements[0];
+    long last = this.elements[--this.size];
+    int i = 0;
+    int half = this.size >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      if (child + 1 < this.size && this.elements[child + 1] < this.elements[child]) {
+        child++;
+      }
+      if (last <= this.elements[child]) {
+        break;
+      }
+      this.elements[i] = this.elements[child];
+      i = child;
+    }
+    if (this.size > 0) {
+      this.elements[i] = last;
+    }
+    return min;
+  }
+
+  // EFFECT: Removes every value, keeping the buffer for reuse
+  void clear() {
+    this.size = 0;
+  }
+}
@@ -0,0 +1,78 @@
+import java.nio.LongBuffer;
+
+// Represents a grid whose walls are kept in a buffer, such as direct memory or
+// part of a file mapped into memory, instead of an array
+class MappedMazeGrid extends MazeGrid {
+  LongBuffer words;
+
+  MappedMazeGrid(int width, int height, LongBuffer words) {
+    // The walls array of MazeGrid is left out, since every method that
+    // touches it is replaced here
+    super(width, height, null);
+    this.words = words;
+  }
+
+  /*-
+   * Fields:
+   * ... this.words ... -- LongBuffer
+   * Methods:
+   * ... this.openRight(int) ... -- boolean
+   * ... this.openDown(int) ... -- boolean
+   * ... this.setBit(long, boolean) ... -- void
+   * ... this.closeAll() ... -- void
+   * ... this.wordCount() ... -- int
+   * ... this.word(int) ... -- long
+   * ... this.setWord(int, long) ... -- void
+   */
+
+  // Is the right side of cell i open?
+  @Override
+  boolean openRight(int i) {
+    long bit = 2L * i;
+    return (this.words.get((int) (bit >>> 6)) & (1L << bit)) != 0;
+  }
+
+  // Is the bottom side of cell i open?
+  @Override
+  boolean openDown(int i) {
+    long bit = 2L * i + 1;
+    return (this.words.get((int) (bit >>> 6)) & (1L << bit)) != 0;
+  }
+
+  // EFFECT: Sets the given bit of the words field
+  @Override
+  void setBit(long bit, boolean on) {
+    int word = (int) (bit >>> 6);
+    if (on) {
+      this.words.put(word, this.words.get(word) | (1L << bit));
+    } else {
+      this.words.put(word, this.words.get(word) & ~(1L << bit));
+    }
+  }
+
+  // EFFECT: Closes every side of every cell
+  @Override
+  void closeAll() {
+    for (int i = 0; i < this.words.capacity(); i++) {
+      this.words.put(i, 0);
+    }
+  }
+
+  // Returns how many words hold the walls
+  @Override
+  int wordCount() {
+    return this.words.capacity();
+  }
+
+  // Returns the given word of the walls, holding the bits of 32 cells
+  @Override
+  long word(int i) {
+    return this.words.get(i);
+  }
+
+  // EFFECT: Sets the given word of the walls, holding the bits of 32 cells
+  @Override
+  void setWord(int i, long w) {
+    this.words.put(i, w);
+  }
+}
@@ -0,0 +1,153 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Makes many mazes without a window, for pre-generating levels:
+//
+//   java MazeBatch width height count seed threads [directory]
+//
+// Each worker thread has its own generator and takes the next maze number
+// until all are made. Maze i is made from a seed mixed from the batch seed
+// and i, so the same batch makes the same mazes on any number of threads.
+// Each maze is written to the directory as a MazeFile, if one is given. The
+// workers only record how long each maze took, so they never contend for the
+// console; the times are printed once the whole batch is made.
+class MazeBatch {
+  // Number of vertices across and down each maze, as in MazeWorld
+  int width;
+  int height;
+  int count;
+  long seed;
+  int threads;
+  // Where the mazes are written, or null to only make them
+  File directory;
+  // Time each maze took to make and to write, by maze number
+  long[] generateNanos;
+  long[] writeNanos;
+
+  MazeBatch(int width, int height, int count, long seed, int threads, File directory) {
+    if (width < 2 || height < 2 || count < 0 || threads < 1) {
+      throw new IllegalArgumentException("A maze needs at least 2 x 2 vertices and a batch "
+          + "at least one thread, given " + width + " x " + height + " and " + threads);
+    }
+    this.width = width;
+    this.height = height;
+    this.count = count;
+    this.seed = seed;
+    this.threads = threads;
+    this.directory = directory;
+    this.generateNanos = new long[count];
+    this.writeNanos = new long[count];
+  }
+
+  /*-
+   * Fields:
+   * ... this.width ... -- int
+   * ... this.height ... -- int
+   * ... this.count ... -- int
+   * ... this.seed ... -- long
+   * ... this.threads ... -- int
+   * ... this.directory ... -- File
+   * ... this.generateNanos ... -- long[]
+   * ... this.writeNanos ... -- long[]
+   * Methods:
+   * ... this.run() ... -- long
+   * ... this.work(AtomicInteger) ... -- void
+   * ... this.fileFor(int) ... -- File
+   * ... MazeBatch.mazeSeed(long, int) ... -- long
+   * ... MazeBatch.main(String[]) ... -- void
+   */
+
+  // Returns the seed of the given maze of a batch with the given seed, by
+  // the SplitMix64 finalizer, so neighbouring mazes get unrelated seeds
+  static long mazeSeed(long seed, int maze) {
+    long z = seed + (maze + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  // Returns how long the whole batch took in nanoseconds
+  // EFFECT: Makes and writes every maze of the batch on the worker threads
+  long run() throws InterruptedException {
+    if (this.directory != null && !this.directory.isDirectory() && !this.directory.mkdirs()) {
+      throw new UncheckedIOException(new IOException("Cannot make " + this.directory));
+    }
+    long before = System.nanoTime();
+    AtomicInteger next = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    ArrayList<Future<?>> workers = new ArrayList<Future<?>>();
+    try {
+      for (int i = 0; i < this.threads; i++) {
+        workers.add(pool.submit(() -> this.work(next)));
+      }
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    return System.nanoTime() - before;
+  }
+
+  // EFFECT: Makes and writes mazes with one generator until none are left
+  void work(AtomicInteger next) {
+    KruskalGenerator generator = new KruskalGenerator(this.width, this.height);
+    for (int maze = next.getAndIncrement(); maze < this.count; maze = next.getAndIncrement()) {
+      long seed = mazeSeed(this.seed, maze);
+      long before = System.nanoTime();
+      MazeGrid grid = generator.generate(seed);
+      long generated = System.nanoTime();
+      if (this.directory != null) {
+        try {
+          MazeFile.save(grid, seed, generator.name(), this.fileFor(maze));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      this.generateNanos[maze] = generated - before;
+      this.writeNanos[maze] = System.nanoTime() - generated;
+    }
+  }
+
+  // Returns the file the given maze is written to
+  File fileFor(int maze) {
+    return new File(this.directory, String.format("maze-%06d.bin", maze));
+  }
+
+  // EFFECT: Runs the batch given on the command line and prints the time of
+  // each maze and the totals
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 5 || args.length > 6) {
+      System.err.println("usage: java MazeBatch width height count seed threads [directory]");
+      System.exit(2);
+    }
+    MazeBatch batch = new MazeBatch(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+        Integer.parseInt(args[2]), Long.parseLong(args[3]), Integer.parseInt(args[4]),
+        args.length == 6 ? new File(args[5]) : null);
+    long nanos = batch.run();
+    long generating = 0;
+    for (int maze = 0; maze < batch.count; maze++) {
+      System.out.println(String.format(
+          "maze %d seed %016x: generated in %.3f ms, written in %.3f ms", maze,
+          mazeSeed(batch.seed, maze), batch.generateNanos[maze] / 1e6,
+          batch.writeNanos[maze] / 1e6));
+      generating += batch.generateNanos[maze];
+    }
+    System.out.println(String.format(
+        "%d mazes of %d x %d on %d threads in %.1f ms: %.1f mazes/s, %.3f ms generating each",
+        batch.count, batch.width, batch.height, batch.threads, nanos / 1e6,
+        batch.count / (nanos / 1e9), batch.count == 0 ? 0 : generating / 1e6 / batch.count));
+  }
+}
@@ -0,0 +1,163 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Represents a maze saved to a file. The file is little endian and starts
+// with a header of HEADER_BYTES bytes:
+//
+//   0   4 bytes   "MAZE"
+//   4   int       version
+//   8   int       width, in vertices as in MazeWorld
+//   12  int       height
+//   16  long      seed the maze was made from
+//   24  32 bytes  name of the generator, ASCII padded with zeros
+//   56  long      number of words of walls that follow
+//
+// and then the walls of the grid as MazeGrid keeps them, two bits per cell.
+// Loading maps the walls into memory instead of reading them, so a maze of
+// any size opens at once and its pages are only read when they are used.
+class MazeFile {
+  int width;
+  int height;
+  long seed;
+  String generator;
+  MazeGrid grid;
+
+  static final byte[] MAGIC = { 'M', 'A', 'Z', 'E' };
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 64;
+  static final int GENERATOR_BYTES = 32;
+  // Bytes of walls written at a time when saving
+  static final int CHUNK_BYTES = 1 << 16;
+
+  MazeFile(int width, int height, long seed, String generator, MazeGrid grid) {
+    this.width = width;
+    this.height = height;
+    this.seed = seed;
+    this.generator = generator;
+    this.grid = grid;
+  }
+
+  /*-
+   * Fields:
+   * ... this.width ... -- int
+   * ... this.height ... -- int
+   * ... this.seed ... -- long
+   * ... this.generator ... -- String
+   * ... this.grid ... -- MazeGrid
+   * Methods:
+   * ... MazeFile.save(MazeGrid, long, String, File) ... -- void
+   * ... MazeFile.header(int, int, long, String) ... -- ByteBuffer
+   * ... MazeFile.create(File) ... -- FileChannel
+   * ... MazeFile.load(File) ... -- MazeFile
+   */
+
+  // EFFECT: Writes the given maze, made from the given seed by the named
+  // generator, to the given file
+  static void save(MazeGrid grid, long seed, String generator, File file) throws IOException {
+    ByteBuffer header = header(grid.width, grid.height, seed, generator);
+    try (FileChannel out = create(file)) {
+      while (header.hasRemaining()) {
+        out.write(header);
+      }
+
+      ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      for (int i = 0; i < grid.wordCount(); i++) {
+        if (!chunk.hasRemaining()) {
+          chunk.flip();
+          while (chunk.hasRemaining()) {
+            out.write(chunk);
+          }
+          chunk.clear();
+        }
+        chunk.putLong(grid.word(i));
+      }
+      chunk.flip();
+      while (chunk.hasRemaining()) {
+        out.write(chunk);
+      }
+    }
+  }
+
+  // Returns the header of a maze of the given size, made from the given seed
+  // by the named generator, ready to be written
+  static ByteBuffer header(int width, int height, long seed, String generator) {
+    byte[] name = generator.getBytes(StandardCharsets.US_ASCII);
+    if (name.length > GENERATOR_BYTES) {
+      throw new IllegalArgumentException("Generator name is over " + GENERATOR_BYTES
+          + " bytes: " + generator);
+    }
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.put(MAGIC).putInt(VERSION).putInt(width).putInt(height).putLong(seed);
+    header.put(name).position(HEADER_BYTES - 8);
+    header.putLong((2L * width * height + 63) >>> 6).flip();
+    return header;
+  }
+
+  // Returns a channel writing the given file from the start, emptying it
+  static FileChannel create(File file) throws IOException {
+    return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  // Returns the maze in the given file, its walls mapped rather than read.
+  // Changes to the grid stay in memory and never reach the file; a file that
+  // cannot be written is mapped read only, so its grid cannot be changed.
+  static MazeFile load(File file) throws IOException {
+    boolean writable = file.canWrite();
+    try (FileChannel in = writable
+        ? FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)
+        : FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && in.read(header) >= 0) {
+        // Keep reading until the header is full or the file ends
+      }
+      header.flip();
+      byte[] magic = new byte[MAGIC.length];
+      if (header.remaining() == HEADER_BYTES) {
+        header.get(magic);
+      }
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException(file + " is not a maze file");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(file + " has maze file version " + version + ", expected "
+            + VERSION);
+      }
+      int width = header.getInt();
+      int height = header.getInt();
+      long seed = header.getLong();
+      byte[] name = new byte[GENERATOR_BYTES];
+      header.get(name);
+      long words = header.getLong();
+      if (width < 2 || height < 2 || words != (2L * width * height + 63) >>> 6
+          || in.size() < HEADER_BYTES + 8 * words) {
+        throw new IOException(file + " is cut short or has a bad size: " + width + " x "
+            + height + " with " + words + " words of walls");
+      }
+      if ((long) width * height > Integer.MAX_VALUE) {
+        throw new IOException(file + " has " + (long) width * height
+            + " cells, more than a grid can index");
+      }
+      int length = 0;
+      while (length < GENERATOR_BYTES && name[length] != 0) {
+        length++;
+      }
+
+      MappedByteBuffer mapped = in.map(writable ? FileChannel.MapMode.PRIVATE
+          : FileChannel.MapMode.READ_ONLY, HEADER_BYTES, 8 * words);
+      LongBuffer walls = mapped.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      return new MazeFile(width, height, seed,
+          new String(name, 0, length, StandardCharsets.US_ASCII),
+          new MappedMazeGrid(width, height, walls));
+    }
+  }
+}
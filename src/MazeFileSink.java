@@ -0,0 +1,69 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+// Represents writing the maze to a MazeFile as it is made
+class MazeFileSink extends PackedRowSink {
+  File file;
+  FileChannel out;
+  ByteBuffer buffer;
+
+  MazeFileSink(File file) {
+    this.file = file;
+    this.buffer = ByteBuffer.allocate(MazeFile.CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /*-
+   * Fields:
+   * ... this.file ... -- File
+   * ... this.out ... -- FileChannel
+   * ... this.buffer ... -- ByteBuffer
+   * Methods:
+   * ... this.start(int, int, long, String) ... -- void
+   * ... this.word(long) ... -- void
+   * ... this.done() ... -- void
+   * ... this.flush() ... -- void
+   * ... this.close() ... -- void
+   */
+
+  public void start(int width, int height, long seed, String generator) throws IOException {
+    super.start(width, height, seed, generator);
+    ByteBuffer header = MazeFile.header(width, height, seed, generator);
+    this.out = MazeFile.create(this.file);
+    while (header.hasRemaining()) {
+      this.out.write(header);
+    }
+    this.buffer.clear();
+  }
+
+  void word(long w) throws IOException {
+    if (!this.buffer.hasRemaining()) {
+      this.flush();
+    }
+    this.buffer.putLong(w);
+  }
+
+  void done() throws IOException {
+    this.flush();
+    this.close();
+  }
+
+  // EFFECT: Writes out the buffered words
+  void flush() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.out.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  // EFFECT: Closes the file, if it was opened, so a maze that could not be
+  // written does not leave it open
+  public void close() throws IOException {
+    if (this.out != null) {
+      this.out.close();
+    }
+  }
+}
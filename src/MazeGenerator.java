@@ -0,0 +1,15 @@
+// Represents a way of making mazes of one size into a MazeGrid, away from any
+// window. The grid has width x height vertices and only its top left
+// (width - 1) x (height - 1) cells are playable. Every maze is made from a
+// seed, so the same seed always makes the same maze.
+interface MazeGenerator {
+  // Returns the name saved with the mazes this makes
+  String name();
+
+  // Returns a new maze made from the given seed
+  MazeGrid generate(long seed);
+
+  // Returns the given grid, of this generator's size, with the maze made
+  // from the given seed in it instead
+  MazeGrid generateInto(long seed, MazeGrid grid);
+}
@@ -0,0 +1,168 @@
+// Represents the cells of a maze as a dense grid. Each cell is known by its
+// index (y * width + x) and owns two bits: whether its right side is open and
+// whether its bottom side is open. Left and top are read from the neighbours.
+// The right side of the last column and the bottom of the last row are never
+// open, so every move allowed by canMove stays inside the grid.
+class MazeGrid {
+  static final int RIGHT = 0;
+  static final int DOWN = 1;
+  static final int LEFT = 2;
+  static final int UP = 3;
+
+  int width;
+  int height;
+  // Bit 2i is "right open" and bit 2i + 1 is "down open" for cell i
+  long[] walls;
+
+  MazeGrid(int width, int height) {
+    this(width, height, new long[wordsFor(width, height)]);
+  }
+
+  MazeGrid(int width, int height, long[] walls) {
+    this.width = width;
+    this.height = height;
+    this.walls = walls;
+  }
+
+  /*-
+   * Fields:
+   * ... this.width ... -- int
+   * ... this.height ... -- int
+   * ... this.walls ... -- long[]
+   * Methods:
+   * ... this.size() ... -- int
+   * ... this.index(int, int) ... -- int
+   * ... this.xOf(int) ... -- int
+   * ... this.yOf(int) ... -- int
+   * ... this.neighbor(int, int) ... -- int
+   * ... this.canMove(int, int) ... -- boolean
+   * ... this.openRight(int) ... -- boolean
+   * ... this.openDown(int) ... -- boolean
+   * ... this.setRight(int, boolean) ... -- void
+   * ... this.setDown(int, boolean) ... -- void
+   * ... this.openAll() ... -- void
+   * ... this.closeAll() ... -- void
+   * ... this.wordCount() ... -- int
+   * ... this.word(int) ... -- long
+   * ... this.setWord(int, long) ... -- void
+   * ... MazeGrid.wordsFor(int, int) ... -- int
+   */
+
+  // Returns how many words the walls of a grid of the given size take
+  static int wordsFor(int width, int height) {
+    return (int) ((2L * width * height + 63) >>> 6);
+  }
+
+  // Returns the number of cells in the grid
+  int size() {
+    return this.width * this.height;
+  }
+
+  // Returns the index of the cell at the given position
+  int index(int x, int y) {
+    return y * this.width + x;
+  }
+
+  // Returns the column of the given cell
+  int xOf(int i) {
+    return i % this.width;
+  }
+
+  // Returns the row of the given cell
+  int yOf(int i) {
+    return i / this.width;
+  }
+
+  // Returns the index of the cell next to i in the given direction
+  int neighbor(int i, int dir) {
+    switch (dir) {
+      case RIGHT:
+        return i + 1;
+      case DOWN:
+        return i + this.width;
+      case LEFT:
+        return i - 1;
+      default:
+        return i - this.width;
+    }
+  }
+
+  // Can you walk out of cell i in the given direction?
+  boolean canMove(int i, int dir) {
+    switch (dir) {
+      case RIGHT:
+        return this.openRight(i);
+      case DOWN:
+        return this.openDown(i);
+      case LEFT:
+        return i > 0 && this.openRight(i - 1);
+      default:
+        return i >= this.width && this.openDown(i - this.width);
+    }
+  }
+
+  // Is the right side of cell i open?
+  boolean openRight(int i) {
+    long bit = 2L * i;
+    return (this.walls[(int) (bit >>> 6)] & (1L << bit)) != 0;
+  }
+
+  // Is the bottom side of cell i open?
+  boolean openDown(int i) {
+    long bit = 2L * i + 1;
+    return (this.walls[(int) (bit >>> 6)] & (1L << bit)) != 0;
+  }
+
+  // EFFECT: Opens or closes the right side of cell i
+  void setRight(int i, boolean open) {
+    this.setBit(2L * i, open && this.xOf(i) < this.width - 1);
+  }
+
+  // EFFECT: Opens or closes the bottom side of cell i
+  void setDown(int i, boolean open) {
+    this.setBit(2L * i + 1, open && this.yOf(i) < this.height - 1);
+  }
+
+  // EFFECT: Sets the given bit of the walls field
+  void setBit(long bit, boolean on) {
+    int word = (int) (bit >>> 6);
+    if (on) {
+      this.walls[word] |= 1L << bit;
+    } else {
+      this.walls[word] &= ~(1L << bit);
+    }
+  }
+
+  // EFFECT: Opens every side between two cells, leaving only the outside closed
+  void openAll() {
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        int i = this.index(x, y);
+        this.setRight(i, true);
+        this.setDown(i, true);
+      }
+    }
+  }
+
+  // EFFECT: Closes every side of every cell
+  void closeAll() {
+    for (int i = 0; i < this.walls.length; i++) {
+      this.walls[i] = 0;
+    }
+  }
+
+  // Returns how many words hold the walls
+  int wordCount() {
+    return this.walls.length;
+  }
+
+  // Returns the given word of the walls, holding the bits of 32 cells
+  long word(int i) {
+    return this.walls[i];
+  }
+
+  // EFFECT: Sets the given word of the walls, holding the bits of 32 cells
+  void setWord(int i, long w) {
+    this.walls[i] = w;
+  }
+}
@@ -0,0 +1,299 @@
+import java.awt.Color;
+import javalib.worldimages.*;
+
+// Represents the picture of the part of the maze inside the window, as a
+// single off-screen image. The cells in view are painted into it when the
+// camera moves; afterwards only the cells whose colour changed since the last
+// frame are painted again. Zoomed in, each cell takes cellSize pixels square
+// and is drawn with its walls. Zoomed out, each pixel stands for a block of
+// blockSize x blockSize cells, shaded by how many of their sides are closed.
+class MazeLayer {
+  // Number of playable cells across and down the whole maze
+  int mazeCellsWide;
+  int mazeCellsHigh;
+  // Pixels per cell, and cells per pixel; at most one of them is above 1
+  int cellSize;
+  int blockSize;
+  // The top left cell in view
+  int originX;
+  int originY;
+  // Size of the image in pixels
+  int pixelsWide;
+  int pixelsHigh;
+  ComputedPixelImage image;
+  // How strongly each pixel is coloured when zoomed out, so a cell that
+  // changed only has to be compared against the pixel it falls in
+  byte[] pixelRank;
+  // Cells to paint again before the next frame
+  IntDeque dirty;
+  // The cells already in dirty, so each is only painted once per frame
+  CellSet queued;
+
+  static final Color FLOOR = Color.LIGHT_GRAY;
+  static final Color SEEN = Color.CYAN;
+  static final Color PATH = Color.BLUE;
+  static final Color WALL = Color.BLACK;
+  // The floor of a block when zoomed out, from fewest to most closed sides
+  static final Color[] SHADES = { new Color(208, 208, 208), FLOOR, new Color(160, 160, 160),
+      new Color(128, 128, 128), new Color(96, 96, 96) };
+  // Ranks of the colours of a pixel when zoomed out
+  static final byte RANK_FLOOR = 0;
+  static final byte RANK_SEEN = 1;
+  static final byte RANK_PATH = 2;
+  // Walls are this many pixels thick, centred on the side of the cell, once
+  // cells are big enough; thinner walls are one pixel
+  static final int WALL_THICKNESS = 3;
+  static final int THICK_WALLS_FROM = 8;
+  // Cells smaller than this are drawn zoomed out, a pixel per block
+  static final int MIN_DETAILED_SIZE = 3;
+
+  MazeLayer(int mazeCellsWide, int mazeCellsHigh, int viewWidth, int viewHeight, int cellSize,
+      int blockSize, CellSet queued) {
+    this.mazeCellsWide = mazeCellsWide;
+    this.mazeCellsHigh = mazeCellsHigh;
+    this.cellSize = cellSize;
+    this.blockSize = blockSize;
+    this.originX = 0;
+    this.originY = 0;
+    this.pixelsWide = Math.max(1, Math.min(viewWidth,
+        (mazeCellsWide * cellSize + blockSize - 1) / blockSize));
+    this.pixelsHigh = Math.max(1, Math.min(viewHeight,
+        (mazeCellsHigh * cellSize + blockSize - 1) / blockSize));
+    this.image = new ComputedPixelImage(this.pixelsWide, this.pixelsHigh);
+    this.pixelRank = new byte[this.pixelsWide * this.pixelsHigh];
+    this.dirty = new IntDeque(64);
+    this.queued = queued;
+  }
+
+  /*-
+   * Fields:
+   * ... this.mazeCellsWide ... -- int
+   * ... this.mazeCellsHigh ... -- int
+   * ... this.cellSize ... -- int
+   * ... this.blockSize ... -- int
+   * ... this.originX ... -- int
+   * ... this.originY ... -- int
+   * ... this.pixelsWide ... -- int
+   * ... this.pixelsHigh ... -- int
+   * ... this.image ... -- ComputedPixelImage
+   * ... this.pixelRank ... -- byte[]
+   * ... this.dirty ... -- IntDeque
+   * ... this.queued ... -- CellSet
+   * Methods:
+   * ... this.isDetailed() ... -- boolean
+   * ... this.cellsAcross() ... -- int
+   * ... this.cellsDown() ... -- int
+   * ... this.inView(int, int) ... -- boolean
+   * ... this.follow(int, int) ... -- boolean
+   * ... this.screenX(int) ... -- int
+   * ... this.screenY(int) ... -- int
+   * ... this.markDirty(int) ... -- void
+   * ... this.paintAll(MazeGrid, CellSet, CellSet) ... -- void
+   * ... this.paintDirty(MazeGrid, CellSet, CellSet) ... -- int
+   * ... this.colorOf(int, CellSet, CellSet) ... -- Color
+   * ... this.paintCell(MazeGrid, int, Color) ... -- void
+   * ... this.paintBlock(MazeGrid, int, int, CellSet, CellSet) ... -- void
+   * ... this.fill(int, int, int, int, Color) ... -- void
+   */
+
+  // Are cells drawn one by one with their walls, rather than a block per pixel?
+  boolean isDetailed() {
+    return this.cellSize >= MIN_DETAILED_SIZE;
+  }
+
+  // Returns how many cells fit across the image, counting a cut off one
+  int cellsAcross() {
+    return Math.min(this.mazeCellsWide,
+        (this.pixelsWide * this.blockSize + this.cellSize - 1) / this.cellSize);
+  }
+
+  // Returns how many cells fit down the image, counting a cut off one
+  int cellsDown() {
+    return Math.min(this.mazeCellsHigh,
+        (this.pixelsHigh * this.blockSize + this.cellSize - 1) / this.cellSize);
+  }
+
+  // Is the cell at the given position in view?
+  boolean inView(int x, int y) {
+    return x >= this.originX && x < this.originX + this.cellsAcross() && y >= this.originY
+        && y < this.originY + this.cellsDown();
+  }
+
+  // Returns true if the camera moved
+  // EFFECT: Moves the camera so the given cell is in view, re-centring on it
+  // once it comes within a quarter of the view of an edge
+  boolean follow(int x, int y) {
+    int across = this.cellsAcross();
+    int down = this.cellsDown();
+    int newX = this.originX;
+    int newY = this.originY;
+    if (x < newX + across / 4 || x >= newX + across - across / 4) {
+      newX = Math.max(0, Math.min(x - across / 2, this.mazeCellsWide - across));
+    }
+    if (y < newY + down / 4 || y >= newY + down - down / 4) {
+      newY = Math.max(0, Math.min(y - down / 2, this.mazeCellsHigh - down));
+    }
+    boolean moved = newX != this.originX || newY != this.originY;
+    this.originX = newX;
+    this.originY = newY;
+    return moved;
+  }
+
+  // Returns the pixel column where the left of the given column of cells is
+  int screenX(int x) {
+    return (x - this.originX) * this.cellSize / this.blockSize;
+  }
+
+  // Returns the pixel row where the top of the given row of cells is
+  int screenY(int y) {
+    return (y - this.originY) * this.cellSize / this.blockSize;
+  }
+
+  // EFFECT: Queues the given cell to be painted again before the next frame
+  void markDirty(int cell) {
+    if (this.queued.add(cell)) {
+      this.dirty.addLast(cell);
+    }
+  }
+
+  // EFFECT: Paints everything in view, forgetting the queued cells
+  void paintAll(MazeGrid grid, CellSet seen, CellSet onPath) {
+    if (this.isDetailed()) {
+      for (int y = this.originY; y < this.originY + this.cellsDown(); y++) {
+        for (int x = this.originX; x < this.originX + this.cellsAcross(); x++) {
+          int cell = grid.index(x, y);
+          this.paintCell(grid, cell, this.colorOf(cell, seen, onPath));
+        }
+      }
+    } else {
+      for (int py = 0; py < this.pixelsHigh; py++) {
+        for (int px = 0; px < this.pixelsWide; px++) {
+          this.paintBlock(grid, px, py, seen, onPath);
+        }
+      }
+    }
+    while (!this.dirty.isEmpty()) {
+      this.queued.remove(this.dirty.removeFirst());
+    }
+  }
+
+  // Returns how many cells in view were painted
+  // EFFECT: Paints every cell queued since the last frame that is in view.
+  // Zoomed out, a cell can only make its pixel stronger, because cells are
+  // only ever added to seen and onPath until the maze is made again.
+  int paintDirty(MazeGrid grid, CellSet seen, CellSet onPath) {
+    int painted = 0;
+    while (!this.dirty.isEmpty()) {
+      int cell = this.dirty.removeFirst();
+      this.queued.remove(cell);
+      int x = grid.xOf(cell);
+      int y = grid.yOf(cell);
+      if (!this.inView(x, y)) {
+        continue;
+      }
+      Color c = this.colorOf(cell, seen, onPath);
+      if (this.isDetailed()) {
+        this.paintCell(grid, cell, c);
+      } else {
+        int px = this.screenX(x);
+        int py = this.screenY(y);
+        byte rank = c == PATH ? RANK_PATH : c == SEEN ? RANK_SEEN : RANK_FLOOR;
+        if (px < this.pixelsWide && py < this.pixelsHigh
+            && rank > this.pixelRank[py * this.pixelsWide + px]) {
+          this.pixelRank[py * this.pixelsWide + px] = rank;
+          this.image.setPixel(px, py, c);
+        }
+      }
+      painted++;
+    }
+    return painted;
+  }
+
+  // Returns the colour the given cell is drawn in
+  Color colorOf(int cell, CellSet seen, CellSet onPath) {
+    if (onPath.contains(cell)) {
+      return PATH;
+    } else if (seen.contains(cell)) {
+      return SEEN;
+    } else {
+      return FLOOR;
+    }
+  }
+
+  // EFFECT: Paints the given cell in the given colour, then the walls on its
+  // closed sides
+  void paintCell(MazeGrid grid, int cell, Color c) {
+    int left = this.screenX(grid.xOf(cell));
+    int top = this.screenY(grid.yOf(cell));
+    int size = this.cellSize;
+    int thickness = size >= THICK_WALLS_FROM ? WALL_THICKNESS : 1;
+    int half = thickness / 2;
+    this.fill(left, top, size, size, c);
+    if (!grid.canMove(cell, MazeGrid.LEFT)) {
+      this.fill(left - half, top, thickness, size, WALL);
+    }
+    if (!grid.canMove(cell, MazeGrid.UP)) {
+      this.fill(left, top - half, size, thickness, WALL);
+    }
+    if (!grid.canMove(cell, MazeGrid.RIGHT)) {
+      this.fill(left + size - half, top, thickness, size, WALL);
+    }
+    if (!grid.canMove(cell, MazeGrid.DOWN)) {
+      this.fill(left, top + size - half, size, thickness, WALL);
+    }
+  }
+
+  // EFFECT: Paints the pixel for the block of cells at the given pixel: the
+  // solution colour if the block holds part of it, the seen colour if it holds
+  // a seen cell, and otherwise a shade sampled along the block's diagonal
+  void paintBlock(MazeGrid grid, int px, int py, CellSet seen, CellSet onPath) {
+    int x0 = this.originX + px * this.blockSize;
+    int y0 = this.originY + py * this.blockSize;
+    int x1 = Math.min(x0 + this.blockSize, this.mazeCellsWide);
+    int y1 = Math.min(y0 + this.blockSize, this.mazeCellsHigh);
+    byte rank = RANK_FLOOR;
+    for (int y = y0; y < y1 && rank < RANK_PATH; y++) {
+      int from = grid.index(x0, y);
+      int to = grid.index(x1, y);
+      if (onPath.anyIn(from, to)) {
+        rank = RANK_PATH;
+      } else if (seen.anyIn(from, to)) {
+        rank = RANK_SEEN;
+      }
+    }
+
+    Color c;
+    if (rank == RANK_PATH) {
+      c = PATH;
+    } else if (rank == RANK_SEEN) {
+      c = SEEN;
+    } else {
+      int closed = 0;
+      int samples = 0;
+      for (int d = 0; x0 + d < x1 && y0 + d < y1; d++) {
+        int cell = grid.index(x0 + d, y0 + d);
+        if (!grid.canMove(cell, MazeGrid.RIGHT)) {
+          closed++;
+        }
+        if (!grid.canMove(cell, MazeGrid.DOWN)) {
+          closed++;
+        }
+        samples += 2;
+      }
+      c = SHADES[samples == 0 ? 0 : closed * (SHADES.length - 1) / samples];
+    }
+    this.pixelRank[py * this.pixelsWide + px] = rank;
+    this.image.setPixel(px, py, c);
+  }
+
+  // EFFECT: Sets the pixels of the given rectangle, clipped to the image
+  void fill(int left, int top, int width, int height, Color c) {
+    int right = Math.min(left + width, this.pixelsWide);
+    int bottom = Math.min(top + height, this.pixelsHigh);
+    for (int py = Math.max(top, 0); py < bottom; py++) {
+      for (int px = Math.max(left, 0); px < right; px++) {
+        this.image.setPixel(px, py, c);
+      }
+    }
+  }
+}
@@ -0,0 +1,246 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Represents what the world has measured about itself: how long making each
+// maze took and how much union-find work it needed, how much solving each
+// tick did, and how long each frame took and how many images it made. Times
+// and sizes go into histograms with one bucket per power of two, so
+// recording is a few adds and memory never grows. Nothing is recorded while
+// the metrics are disabled, and the world only reads the clock for mazes and
+// ticks when they are enabled, so leaving them off costs one boolean check
+// per maze, tick and frame. Frames are timed either way, since the step
+// policy paces solving by how long they take.
+//
+// The metrics are shown by the world's overlay and, once registered, through
+// JMX. JMX reads them from another thread, so its numbers may be a frame old.
+class MazeMetrics implements MazeMetricsMBean {
+  volatile boolean enabled;
+  long mazes;
+  int mazeCells;
+  long unionFindOps;
+  long nodesExpanded;
+  long maxFrontier;
+  // Nanoseconds for making each maze, and for each phase of making a
+  // Kruskal maze
+  Histogram generateNanos;
+  Histogram orderNanos;
+  Histogram wallsNanos;
+  Histogram analysisNanos;
+  // Nanoseconds and nodes expanded for each tick
+  Histogram tickNanos;
+  Histogram tickNodes;
+  // Nanoseconds and images made for each frame
+  Histogram frameNanos;
+  Histogram frameImages;
+
+  // The name the metrics are registered under by default
+  static final String OBJECT_NAME = "MazeWorld:type=MazeMetrics";
+
+  MazeMetrics() {
+    this.generateNanos = new Histogram();
+    this.orderNanos = new Histogram();
+    this.wallsNanos = new Histogram();
+    this.analysisNanos = new Histogram();
+    this.tickNanos = new Histogram();
+    this.tickNodes = new Histogram();
+    this.frameNanos = new Histogram();
+    this.frameImages = new Histogram();
+  }
+
+  /*-
+   * Fields:
+   * ... this.enabled ... -- boolean
+   * ... this.mazes ... -- long
+   * ... this.mazeCells ... -- int
+   * ... this.unionFindOps ... -- long
+   * ... this.nodesExpanded ... -- long
+   * ... this.maxFrontier ... -- long
+   * ... this.generateNanos ... -- Histogram
+   * ... this.orderNanos ... -- Histogram
+   * ... this.wallsNanos ... -- Histogram
+   * ... this.analysisNanos ... -- Histogram
+   * ... this.tickNanos ... -- Histogram
+   * ... this.tickNodes ... -- Histogram
+   * ... this.frameNanos ... -- Histogram
+   * ... this.frameImages ... -- Histogram
+   * Methods:
+   * ... this.mazeMade(MazeGenerator, long, long, int) ... -- void
+   * ... this.ticked(long, long, int) ... -- void
+   * ... this.frameBuilt(long, int) ... -- void
+   * ... this.register(String) ... -- ObjectName
+   * ... this.lines() ... -- ArrayList<String>
+   * ... MazeMetrics.millis(double) ... -- double
+   * ... and the getters of MazeMetricsMBean
+   */
+
+  // EFFECT: Records a maze of the given number of cells just made by the
+  // given generator in the given nanoseconds, whose distances and tree took
+  // the given nanoseconds after that. Only Kruskal's phases are known.
+  void mazeMade(MazeGenerator generator, long generation, long analysis, int cells) {
+    this.mazes++;
+    this.mazeCells = cells;
+    this.generateNanos.record(generation);
+    if (generator instanceof KruskalGenerator) {
+      KruskalGenerator kruskal = (KruskalGenerator) generator;
+      this.unionFindOps += kruskal.edgesTried;
+      this.orderNanos.record(kruskal.orderNanos);
+      this.wallsNanos.record(kruskal.wallsNanos);
+    }
+    this.analysisNanos.record(analysis);
+  }
+
+  // EFFECT: Records a tick of the given nanoseconds that expanded the given
+  // number of nodes, leaving the given number waiting in the frontier
+  void ticked(long nanos, long expanded, int frontier) {
+    this.tickNanos.record(nanos);
+    this.tickNodes.record(expanded);
+    this.nodesExpanded += expanded;
+    this.maxFrontier = Math.max(this.maxFrontier, frontier);
+  }
+
+  // EFFECT: Records a frame of the given nanoseconds that made the given
+  // number of images
+  void frameBuilt(long nanos, int images) {
+    this.frameNanos.record(nanos);
+    this.frameImages.record(images);
+  }
+
+  // Returns the name these metrics were registered under
+  // EFFECT: Registers them with the platform's MBean server under the given
+  // name, so jconsole and other JMX clients can read them, in place of any
+  // metrics registered under it before
+  ObjectName register(String name) {
+    try {
+      ObjectName objectName = new ObjectName(name);
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+      server.registerMBean(this, objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("Could not register the metrics as " + name, e);
+    }
+  }
+
+  // Returns the lines of the overlay
+  ArrayList<String> lines() {
+    ArrayList<String> lines = new ArrayList<String>();
+    lines.add(String.format("maze: %d cells, made in %.2f ms (order %.2f, walls %.2f), "
+        + "analysis %.2f ms, %d union-find ops", this.mazeCells, this.getMeanGenerationMillis(),
+        this.getMeanOrderMillis(), this.getMeanWallsMillis(), this.getMeanAnalysisMillis(),
+        this.unionFindOps));
+    lines.add(String.format("tick: %.2f ms (p99 %.2f), %.1f nodes, frontier up to %d",
+        this.getMeanTickMillis(), this.getP99TickMillis(), this.getMeanNodesPerTick(),
+        this.maxFrontier));
+    lines.add(String.format("frame: %.2f ms (p99 %.2f, max %.2f), %.1f images",
+        this.getMeanFrameMillis(), this.getP99FrameMillis(), this.getMaxFrameMillis(),
+        this.getMeanImagesPerFrame()));
+    return lines;
+  }
+
+  // Returns the given nanoseconds in milliseconds
+  static double millis(double nanos) {
+    return nanos / 1e6;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getMazesMade() {
+    return this.mazes;
+  }
+
+  public int getMazeCells() {
+    return this.mazeCells;
+  }
+
+  public double getMeanGenerationMillis() {
+    return millis(this.generateNanos.mean());
+  }
+
+  public double getMeanOrderMillis() {
+    return millis(this.orderNanos.mean());
+  }
+
+  public double getMeanWallsMillis() {
+    return millis(this.wallsNanos.mean());
+  }
+
+  public double getMeanAnalysisMillis() {
+    return millis(this.analysisNanos.mean());
+  }
+
+  public long getUnionFindOperations() {
+    return this.unionFindOps;
+  }
+
+  public long getTicks() {
+    return this.tickNanos.count;
+  }
+
+  public double getMeanTickMillis() {
+    return millis(this.tickNanos.mean());
+  }
+
+  public double getP99TickMillis() {
+    return millis(this.tickNanos.percentile(0.99));
+  }
+
+  public long getNodesExpanded() {
+    return this.nodesExpanded;
+  }
+
+  public double getMeanNodesPerTick() {
+    return this.tickNodes.mean();
+  }
+
+  public long getMaxFrontier() {
+    return this.maxFrontier;
+  }
+
+  public long getFrames() {
+    return this.frameNanos.count;
+  }
+
+  public double getMeanFrameMillis() {
+    return millis(this.frameNanos.mean());
+  }
+
+  public double getP99FrameMillis() {
+    return millis(this.frameNanos.percentile(0.99));
+  }
+
+  public double getMaxFrameMillis() {
+    return millis(this.frameNanos.max);
+  }
+
+  public double getMeanImagesPerFrame() {
+    return this.frameImages.mean();
+  }
+
+  public void reset() {
+    this.mazes = 0;
+    this.mazeCells = 0;
+    this.unionFindOps = 0;
+    this.nodesExpanded = 0;
+    this.maxFrontier = 0;
+    this.generateNanos.reset();
+    this.orderNanos.reset();
+    this.wallsNanos.reset();
+    this.analysisNanos.reset();
+    this.tickNanos.reset();
+    this.tickNodes.reset();
+    this.frameNanos.reset();
+    this.frameImages.reset();
+  }
+}
@@ -0,0 +1,49 @@
+// The attributes and operations of MazeMetrics seen through JMX, such as in
+// jconsole under MazeWorld:type=MazeMetrics. Times are in milliseconds.
+public interface MazeMetricsMBean {
+  // Whether the world is recording anything
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  long getMazesMade();
+
+  // Cells in the grid of the last maze made
+  int getMazeCells();
+
+  double getMeanGenerationMillis();
+
+  double getMeanOrderMillis();
+
+  double getMeanWallsMillis();
+
+  // Time spent after the walls are built finding distances and the tree
+  double getMeanAnalysisMillis();
+
+  long getUnionFindOperations();
+
+  long getTicks();
+
+  double getMeanTickMillis();
+
+  double getP99TickMillis();
+
+  long getNodesExpanded();
+
+  double getMeanNodesPerTick();
+
+  long getMaxFrontier();
+
+  long getFrames();
+
+  double getMeanFrameMillis();
+
+  double getP99FrameMillis();
+
+  double getMaxFrameMillis();
+
+  double getMeanImagesPerFrame();
+
+  // Forgets everything recorded so far
+  void reset();
+}
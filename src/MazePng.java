@@ -0,0 +1,419 @@
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Writes a picture of a whole maze as a PNG file, straight from the grid and
+// without any javalib images, so mazes far too big for a window can be drawn,
+// headless too:
+//
+//   java MazePng width height seed file [cellPixels] [generator]
+//
+// Each cell takes cellPixels pixels square in its colour, as in MazeLayer,
+// with a line of one pixel between cells: wall where the side is closed, and
+// where it is open the colour of the cells on both sides. The pixels are
+// indexes into a palette of those few colours, two to a byte, which halves
+// what there is to compress.
+//
+// The picture is made in bands of rows. Each band is drawn and compressed on
+// its own on a ForkJoinPool, ending in a flush so the compressed bands join
+// into one stream, and each is written as an IDAT chunk as soon as the bands
+// before it are. Only a few bands are kept at once, so memory stays bounded
+// whatever the size of the maze. The checksum of the whole stream is put
+// together from the checksums of the bands.
+class MazePng {
+  MazeGrid grid;
+  // Cells seen by the player or a search, and cells on the solution; either
+  // may be null when there are none
+  CellSet seen;
+  CellSet onPath;
+  // The cells drawn as the player and the end, or -1 for none
+  int player;
+  int end;
+  int cellPixels;
+  // How hard to compress, as in Deflater
+  int level;
+  // Rows of cells in each band
+  int bandRows;
+  ForkJoinPool pool;
+  // Playable cells across and down, and the size of the picture in pixels
+  int cellsWide;
+  int cellsHigh;
+  int pixelsWide;
+  int pixelsHigh;
+  // Bytes in each row of the picture, with its filter byte in front
+  int rowBytes;
+
+  static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+  // The palette, by index; walls are 0, which new rows already are
+  static final Color[] PALETTE = { MazeLayer.WALL, MazeLayer.FLOOR, MazeLayer.SEEN,
+      MazeLayer.PATH, Color.GREEN, Color.RED };
+  static final byte WALL = 0;
+  static final byte FLOOR = 1;
+  static final byte PLAYER = 4;
+  static final byte END = 5;
+  // About how many bytes of rows each band holds before compressing
+  static final int BAND_BYTES = 1 << 22;
+
+  MazePng(MazeGrid grid, CellSet seen, CellSet onPath, int player, int end, int cellPixels) {
+    this(grid, seen, onPath, player, end, cellPixels, Deflater.BEST_SPEED,
+        ForkJoinPool.commonPool());
+  }
+
+  MazePng(MazeGrid grid, CellSet seen, CellSet onPath, int player, int end, int cellPixels,
+      int level, ForkJoinPool pool) {
+    this.cellsWide = grid.width - 1;
+    this.cellsHigh = grid.height - 1;
+    long wide = (long) this.cellsWide * (cellPixels + 1) + 1;
+    long high = (long) this.cellsHigh * (cellPixels + 1) + 1;
+    if (cellPixels < 1 || (wide / 2 + 2) * (cellPixels + 2) > Integer.MAX_VALUE - 8
+        || high > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Cannot draw " + this.cellsWide + " x "
+          + this.cellsHigh + " cells at " + cellPixels + " pixels each in one picture");
+    }
+    this.grid = grid;
+    this.seen = seen;
+    this.onPath = onPath;
+    this.player = player;
+    this.end = end;
+    this.cellPixels = cellPixels;
+    this.level = level;
+    this.pool = pool;
+    this.pixelsWide = (int) wide;
+    this.pixelsHigh = (int) high;
+    this.rowBytes = (this.pixelsWide + 1) / 2 + 1;
+    this.bandRows = Math.max(1, BAND_BYTES / ((cellPixels + 1) * this.rowBytes));
+  }
+
+  /*-
+   * Fields:
+   * ... this.grid ... -- MazeGrid
+   * ... this.seen ... -- CellSet
+   * ... this.onPath ... -- CellSet
+   * ... this.player ... -- int
+   * ... this.end ... -- int
+   * ... this.cellPixels ... -- int
+   * ... this.level ... -- int
+   * ... this.bandRows ... -- int
+   * ... this.pool ... -- ForkJoinPool
+   * ... this.cellsWide ... -- int
+   * ... this.cellsHigh ... -- int
+   * ... this.pixelsWide ... -- int
+   * ... this.pixelsHigh ... -- int
+   * ... this.rowBytes ... -- int
+   * Methods:
+   * ... this.write(File) ... -- void
+   * ... this.write(OutputStream) ... -- void
+   * ... this.bandCount() ... -- int
+   * ... this.startBand(int) ... -- PngBand
+   * ... MazePng.chunk(DataOutputStream, String, byte[], int) ... -- void
+   * ... MazePng.setPixel(byte[], int, int, byte) ... -- void
+   * ... this.fillRanks(int, byte[]) ... -- void
+   * ... this.drawBand(int, int, byte[]) ... -- int
+   * ... MazePng.adler32Combine(long, long, long) ... -- long
+   * ... MazePng.main(String[]) ... -- void
+   */
+
+  // EFFECT: Writes the picture to the given file
+  void write(File file) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+      this.write(out);
+    }
+  }
+
+  // EFFECT: Writes the picture to the given stream, keeping only as many
+  // bands at once as the pool has threads, and one more
+  void write(OutputStream stream) throws IOException {
+    DataOutputStream out = new DataOutputStream(stream);
+    out.write(SIGNATURE);
+    byte[] header = new byte[13];
+    ByteBuffer.wrap(header).putInt(this.pixelsWide).putInt(this.pixelsHigh)
+        // 4 bits a pixel, indexes into the palette, and the standard
+        // compression and filtering, not interlaced
+        .put((byte) 4).put((byte) 3).put((byte) 0).put((byte) 0).put((byte) 0);
+    chunk(out, "IHDR", header, header.length);
+    byte[] palette = new byte[3 * PALETTE.length];
+    for (int i = 0; i < PALETTE.length; i++) {
+      palette[3 * i] = (byte) PALETTE[i].getRed();
+      palette[3 * i + 1] = (byte) PALETTE[i].getGreen();
+      palette[3 * i + 2] = (byte) PALETTE[i].getBlue();
+    }
+    chunk(out, "PLTE", palette, palette.length);
+
+    int bands = this.bandCount();
+    PngBand[] ahead = new PngBand[Math.min(bands, this.pool.getParallelism() + 1)];
+    for (int i = 0; i < ahead.length; i++) {
+      ahead[i] = this.startBand(i);
+    }
+    long adler = 1;
+    for (int i = 0; i < bands; i++) {
+      PngBand band = ahead[i % ahead.length];
+      band.join();
+      adler = i == 0 ? band.adler : adler32Combine(adler, band.adler, band.rawLength);
+      if (band.isLast()) {
+        ByteBuffer.wrap(band.bytes, band.length, 4).putInt((int) adler);
+        band.length += 4;
+      }
+      chunk(out, "IDAT", band.bytes, band.length);
+      ahead[i % ahead.length] = i + ahead.length < bands ? this.startBand(i + ahead.length)
+          : null;
+    }
+    chunk(out, "IEND", new byte[0], 0);
+    out.flush();
+  }
+
+  // Returns how many bands the picture is made in
+  int bandCount() {
+    return (this.cellsHigh + this.bandRows - 1) / this.bandRows;
+  }
+
+  // Returns the given band, being drawn and compressed on the pool
+  PngBand startBand(int i) {
+    int first = i * this.bandRows;
+    PngBand band = new PngBand(this, first, Math.min(first + this.bandRows, this.cellsHigh));
+    this.pool.execute(band);
+    return band;
+  }
+
+  // EFFECT: Writes a chunk of the given type holding the given bytes, with
+  // its length in front and its checksum after
+  static void chunk(DataOutputStream out, String type, byte[] data, int length)
+      throws IOException {
+    byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+    CRC32 crc = new CRC32();
+    crc.update(name);
+    crc.update(data, 0, length);
+    out.writeInt(length);
+    out.write(name);
+    out.write(data, 0, length);
+    out.writeInt((int) crc.getValue());
+  }
+
+  // EFFECT: Sets the given pixel of the row starting at the given byte, which
+  // is still a wall; pixels are two to a byte, the left one in the high half
+  static void setPixel(byte[] raw, int row, int px, byte c) {
+    raw[row + 1 + (px >>> 1)] |= (px & 1) == 0 ? c << 4 : c;
+  }
+
+  // EFFECT: Sets how strongly each cell of the given row is coloured: 2 on
+  // the solution, 1 seen and 0 otherwise
+  void fillRanks(int y, byte[] ranks) {
+    Arrays.fill(ranks, (byte) 0);
+    int row = y * this.grid.width;
+    if (this.seen != null && this.seen.anyIn(row, row + this.cellsWide)) {
+      for (int x = 0; x < this.cellsWide; x++) {
+        if (this.seen.contains(row + x)) {
+          ranks[x] = 1;
+        }
+      }
+    }
+    if (this.onPath != null && this.onPath.anyIn(row, row + this.cellsWide)) {
+      for (int x = 0; x < this.cellsWide; x++) {
+        if (this.onPath.contains(row + x)) {
+          ranks[x] = 2;
+        }
+      }
+    }
+  }
+
+  // Returns how many bytes of rows were drawn
+  // EFFECT: Draws the pixel rows of the given rows of cells into the given
+  // bytes, which are all walls to begin with: the line along the top of each
+  // row of cells, the cells, and after the last row the bottom border
+  int drawBand(int first, int last, byte[] raw) {
+    int size = this.cellPixels;
+    int stride = this.rowBytes;
+    int width = this.grid.width;
+    byte[] above = new byte[this.cellsWide];
+    byte[] ranks = new byte[this.cellsWide];
+    if (first > 0) {
+      this.fillRanks(first - 1, above);
+    }
+    int at = 0;
+    for (int y = first; y < last; y++) {
+      this.fillRanks(y, ranks);
+      int row = y * width;
+      // Filter bytes are 0, no filter, as the rows already are
+      for (int x = 0; x < this.cellsWide; x++) {
+        if (y > 0 && this.grid.canMove(row + x, MazeGrid.UP)) {
+          byte open = (byte) (FLOOR + Math.min(above[x], ranks[x]));
+          int px = x * (size + 1) + 1;
+          for (int i = 0; i < size; i++) {
+            setPixel(raw, at, px + i, open);
+          }
+        }
+      }
+      at += stride;
+      for (int x = 0; x < this.cellsWide; x++) {
+        int cell = row + x;
+        int px = x * (size + 1);
+        if (x > 0 && this.grid.canMove(cell, MazeGrid.LEFT)) {
+          setPixel(raw, at, px, (byte) (FLOOR + Math.min(ranks[x - 1], ranks[x])));
+        }
+        byte c = cell == this.player ? PLAYER : cell == this.end ? END
+            : (byte) (FLOOR + ranks[x]);
+        for (int i = 1; i <= size; i++) {
+          setPixel(raw, at, px + i, c);
+        }
+      }
+      for (int i = 1; i < size; i++) {
+        System.arraycopy(raw, at, raw, at + i * stride, stride);
+      }
+      at += size * stride;
+      byte[] swap = above;
+      above = ranks;
+      ranks = swap;
+    }
+    if (last == this.cellsHigh) {
+      at += stride;
+    }
+    return at;
+  }
+
+  // Returns the Adler-32 checksum of two runs of bytes one after the other,
+  // from the checksum of each and the length of the second, as zlib does
+  static long adler32Combine(long first, long second, long secondLength) {
+    long base = 65521;
+    long rem = secondLength % base;
+    long sum1 = first & 0xFFFF;
+    long sum2 = (rem * sum1) % base;
+    sum1 += (second & 0xFFFF) + base - 1;
+    sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF) + base - rem;
+    if (sum1 >= base) {
+      sum1 -= base;
+    }
+    if (sum1 >= base) {
+      sum1 -= base;
+    }
+    if (sum2 >= base << 1) {
+      sum2 -= base << 1;
+    }
+    if (sum2 >= base) {
+      sum2 -= base;
+    }
+    return sum1 | (sum2 << 16);
+  }
+
+  // Makes a maze and writes its picture, with the start and the end marked
+  public static void main(String[] args) throws IOException {
+    if (args.length < 4 || args.length > 6) {
+      System.err.println("usage: java MazePng width height seed file [cellPixels] [generator]");
+      System.exit(2);
+    }
+    int width = Integer.parseInt(args[0]);
+    int height = Integer.parseInt(args[1]);
+    MazeGenerator generator = args.length == 6
+        ? MazeWorld.generatorFor(args[5], width, height)
+        : MazeWorld.generatorFor(width, height);
+    long before = System.nanoTime();
+    MazeGrid grid = generator.generate(Long.parseLong(args[2]));
+    long made = System.nanoTime();
+    MazePng png = new MazePng(grid, null, null, 0, grid.index(width - 2, height - 2),
+        args.length >= 5 ? Integer.parseInt(args[4]) : 1);
+    File file = new File(args[3]);
+    png.write(file);
+    long written = System.nanoTime();
+    System.out.println(String.format(
+        "%d x %d cells by %s in %.1f ms, %d x %d pixels in %.1f ms, %d bytes",
+        png.cellsWide, png.cellsHigh, generator.name(), (made - before) / 1e6, png.pixelsWide,
+        png.pixelsHigh, (written - made) / 1e6, file.length()));
+  }
+}
+
+// Represents one band of a picture of a maze: its rows drawn and compressed
+// into the part of the compressed stream that is its IDAT chunk
+class PngBand extends RecursiveAction {
+  MazePng png;
+  // The rows of cells in the band, first included and last not
+  int first;
+  int last;
+  // The compressed bytes and how many of them there are, with room for the
+  // checksum of the stream after the last band
+  byte[] bytes;
+  int length;
+  // Checksum and length of the rows before compressing
+  long adler;
+  int rawLength;
+
+  static final long serialVersionUID = 1L;
+
+  PngBand(MazePng png, int first, int last) {
+    this.png = png;
+    this.first = first;
+    this.last = last;
+  }
+
+  /*-
+   * Fields:
+   * ... this.png ... -- MazePng
+   * ... this.first ... -- int
+   * ... this.last ... -- int
+   * ... this.bytes ... -- byte[]
+   * ... this.length ... -- int
+   * ... this.adler ... -- long
+   * ... this.rawLength ... -- int
+   * Methods:
+   * ... this.compute() ... -- void
+   * ... this.isLast() ... -- boolean
+   */
+
+  // Is this the band at the bottom of the picture?
+  boolean isLast() {
+    return this.last == this.png.cellsHigh;
+  }
+
+  // EFFECT: Draws the rows of the band and compresses them. The first band
+  // starts the stream with its header; every band but the last ends in a
+  // flush, so the next band's blocks follow on, and the last ends the stream.
+  @Override
+  protected void compute() {
+    MazePng png = this.png;
+    int rows = (this.last - this.first) * (png.cellPixels + 1) + (this.isLast() ? 1 : 0);
+    byte[] raw = new byte[rows * png.rowBytes];
+    this.rawLength = png.drawBand(this.first, this.last, raw);
+    Adler32 checksum = new Adler32();
+    checksum.update(raw, 0, this.rawLength);
+    this.adler = checksum.getValue();
+
+    int trailer = this.isLast() ? 4 : 0;
+    byte[] out = new byte[Math.max(64, this.rawLength / 16) + trailer];
+    int length = 0;
+    if (this.first == 0) {
+      out[length++] = 0x78;
+      out[length++] = 0x01;
+    }
+    Deflater deflater = new Deflater(png.level, true);
+    try {
+      deflater.setInput(raw, 0, this.rawLength);
+      if (this.isLast()) {
+        deflater.finish();
+      }
+      while (true) {
+        if (length + trailer == out.length) {
+          out = Arrays.copyOf(out, out.length * 2);
+        }
+        length += deflater.deflate(out, length, out.length - trailer - length,
+            this.isLast() ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+        // A flush is complete once it leaves room to spare
+        if (this.isLast() ? deflater.finished() : length < out.length) {
+          break;
+        }
+      }
+    } finally {
+      deflater.end();
+    }
+    this.bytes = out;
+    this.length = length;
+  }
+}
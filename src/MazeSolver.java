@@ -0,0 +1,33 @@
+// Represents a way of finding the path between two cells of a maze. A solver
+// can be run a unit of work at a time for the animation, or to completion.
+interface MazeSolver {
+  // Returns the name of this solver, for reports
+  String name();
+
+  // Is there nothing left for this solver to do?
+  boolean isDone();
+
+  // Was the target reached?
+  boolean found();
+
+  // Returns the cell this step worked on, or -1 if the solver is already done
+  // EFFECT: Does the next unit of work
+  int step();
+
+  // Returns true if the target was reached
+  // EFFECT: Runs this solver until it is done
+  boolean solve();
+
+  // Returns the cells from the start to the target, or an empty array if the
+  // target has not been reached
+  int[] path();
+
+  // Returns how many cells this solver has worked on
+  long nodesExpanded();
+
+  // Returns the wall time spent in step and solve, in nanoseconds
+  long elapsedNanos();
+
+  // Returns how many cells are waiting to be worked on
+  int frontierSize();
+}
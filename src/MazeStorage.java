@@ -0,0 +1,122 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+// Represents where the big per-cell structures of a maze are kept: its walls,
+// the sets of seen cells, and the arrays of searches and distances. On the
+// heap they are plain arrays. Off it they are buffers behind the same
+// accessors, either in direct memory, which is limited by
+// -XX:MaxDirectMemorySize rather than -Xmx, or in temporary files mapped
+// into memory, which are limited only by the disk and paged in and out by
+// the operating system.
+class MazeStorage {
+  // Whether the structures are kept in direct memory or mapped files rather
+  // than on the heap
+  boolean offHeap;
+  // Where the mapped files go, or null for direct memory
+  File directory;
+
+  MazeStorage(boolean offHeap, File directory) {
+    this.offHeap = offHeap;
+    this.directory = directory;
+  }
+
+  /*-
+   * Fields:
+   * ... this.offHeap ... -- boolean
+   * ... this.directory ... -- File
+   * Methods:
+   * ... MazeStorage.heap() ... -- MazeStorage
+   * ... MazeStorage.direct() ... -- MazeStorage
+   * ... MazeStorage.mapped(File) ... -- MazeStorage
+   * ... this.name() ... -- String
+   * ... this.grid(int, int) ... -- MazeGrid
+   * ... this.cells(int) ... -- CellSet
+   * ... this.ints(int) ... -- IntStore
+   * ... this.buffer(long) ... -- ByteBuffer
+   */
+
+  // Returns storage keeping everything in arrays on the heap
+  static MazeStorage heap() {
+    return new MazeStorage(false, null);
+  }
+
+  // Returns storage keeping everything in direct memory
+  static MazeStorage direct() {
+    return new MazeStorage(true, null);
+  }
+
+  // Returns storage keeping everything in files in the given directory,
+  // mapped into memory; the files are deleted as soon as they are mapped
+  static MazeStorage mapped(File directory) {
+    return new MazeStorage(true, directory);
+  }
+
+  // Returns the name of this storage, for reports
+  String name() {
+    return !this.offHeap ? "heap" : this.directory == null ? "direct" : "mapped";
+  }
+
+  // Returns a new grid of the given size with every side closed
+  MazeGrid grid(int width, int height) {
+    if (!this.offHeap) {
+      return new MazeGrid(width, height);
+    }
+    int words = MazeGrid.wordsFor(width, height);
+    return new MappedMazeGrid(width, height, this.buffer(8L * words).asLongBuffer());
+  }
+
+  // Returns a new empty set for cells below the given size
+  CellSet cells(int size) {
+    if (!this.offHeap) {
+      return new CellSet(size);
+    }
+    return new BufferCellSet(this.buffer(8L * ((size + 63L) >>> 6)).asLongBuffer());
+  }
+
+  // Returns a new array of the given number of ints, all zero
+  IntStore ints(int length) {
+    if (!this.offHeap) {
+      return new IntStore(length);
+    }
+    IntBuffer[] chunks = new IntBuffer[IntStore.chunksFor(length)];
+    for (int c = 0; c < chunks.length; c++) {
+      long count = Math.min(IntStore.CHUNK, length - (long) c * IntStore.CHUNK);
+      chunks[c] = this.buffer(4 * count).asIntBuffer();
+    }
+    return new IntStore(chunks, length);
+  }
+
+  // Returns a new buffer of the given number of bytes, all zero, in direct
+  // memory or a mapped file
+  ByteBuffer buffer(long bytes) {
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("A buffer holds at most 2 GB, asked for " + bytes);
+    }
+    // A buffer of no bytes cannot be mapped, and needs no memory anyway
+    if (this.directory == null || bytes == 0) {
+      return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+    try {
+      File file = File.createTempFile("maze", ".bin", this.directory);
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.setLength(bytes);
+        ByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        return mapped.order(ByteOrder.nativeOrder());
+      } finally {
+        // The mapping outlives the file's name, except where the system
+        // will not delete a mapped file
+        if (!file.delete()) {
+          file.deleteOnExit();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
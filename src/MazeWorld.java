@@ -1,148 +1,31 @@
 
 // Comments: 176-7; starting at 219 with determinePath ending at 240
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import javax.imageio.ImageIO;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import tester.*;
 import javalib.impworld.*;
 import java.awt.Color;
+import java.awt.image.BufferedImage;
 import javalib.worldimages.*;
 
-class EdgeComparator implements Comparator<Edge> {
-
-  @Override
-  public int compare(Edge o1, Edge o2) {
-    return o1.weight - o2.weight;
-  }
-}
-
-class Vertex {
-  // Position of the Vertex
-  Posn pos;
-
-  // Vertex's above, below, and to the sides
-  Vertex up;
-  Vertex down;
-  Vertex left;
-  Vertex right;
-  Vertex previous;
-
-  // Edges from this vertex
-  ArrayList<Edge> outEdges;
-
-  // Does this vertex have a path going up?
-  boolean hasUp;
-  boolean hasDown;
-  boolean hasLeft;
-  boolean hasRight;
-
-  boolean alreadySeen;
-  boolean onCorrectPath;
-
-  Vertex(int x, int y) {
-    this.pos = new Posn(x, y);
-    this.hasUp = true;
-    this.hasDown = true;
-    this.hasLeft = true;
-    this.hasRight = true;
-    this.outEdges = new ArrayList<Edge>();
-    this.alreadySeen = false;
-    this.onCorrectPath = false;
-  }
-
-  /*-
-   * Fields:
-   * ... this.pos ... -- Posn
-   * ... this.up ... -- Vertex
-   * ... this.down ... -- Vertex
-   * ... this.left ... -- Vertex
-   * ... this.right ... -- Vertex
-   * ... this.outEdges ... -- ArrayList<Edge>
-   * ... this.hasUp ... -- boolean
-   * ... this.hasDonw ... -- boolean
-   * ... this.hasRight ... -- boolean
-   * ... this.hasLeft ... -- boolean
-   * Methods:
-   * ... this.drawVertex(int) ... -- WorldImage
-   * ... this.checkPaths() ... -- void
-   * ... this.equals(Vertex v) ... --- boolean
-   */
-
-  // Draws vertex
-  public WorldImage drawVertex(int vertexSize) {
-    Color c = Color.LIGHT_GRAY;
-
-    if (this.alreadySeen) {
-      c = Color.CYAN;
-    }
-    if (this.onCorrectPath) {
-      c = Color.BLUE;
-    }
-    return new RectangleImage(vertexSize, vertexSize, OutlineMode.SOLID, c);
-  }
-
-  // Sets the hasUp and hasLeft fields for the given vertex
-  // EFFECT: Sets the hasUp and hasLeft fields for the given vertex
-  public void checkPaths() {
-    for (Edge e : this.outEdges) {
-      if (e.to.equals(this.right)) {
-        this.hasUp = false;
-      }
-
-      if (e.to.equals(this.down)) {
-        this.hasLeft = false;
-      }
-    }
-  }
-}
-
-// Represents connections between the vertices
-class Edge {
-  Vertex to;
-  Vertex from;
-  int weight;
-
-  Edge(int weight, Vertex to, Vertex from) {
-    this.weight = weight;
-    this.to = to;
-    this.from = from;
-  }
-
-  /*-
-   * Fields:
-   * ... this.to ... -- Vertex
-   * ... this.from ... -- Vertex
-   * ... this.weight ... -- int
-   * Methods:
-   * ... this.compareTo(Edge) ... -- boolean
-   * ... this.drawHorizontalWall(int) ... -- WorldImage
-   * ... this.drawVerticalWall(int) ... -- WorldImage
-   */
-
-  boolean compareTo(Edge e) {
-    return this.weight < e.weight;
-  }
-
-  // Draws a horizontal wall on the canvas
-  WorldImage drawHorizontalWall(int size) {
-    return new RectangleImage(size, 3, OutlineMode.SOLID, Color.BLACK);
-  }
-
-  // Draws a Vertical wall on the canvas
-  WorldImage drawVerticalWall(int size) {
-    return new RectangleImage(3, size, OutlineMode.SOLID, Color.BLACK);
-  }
-}
-
 class Player {
   int x;
   int y;
   Color col;
-  Vertex cur;
 
   Player(int x, int y, Color col) {
     this.x = x;
@@ -155,7 +38,6 @@ class Player {
    * ... this.x ... -- int
    * ... this.y ... -- int
    * ... this.col ... -- Color
-   * ... this.cur ... -- Vertex
    * Methods:
    * ... this.drawPlayer(int) ... -- WorldImage
    */
@@ -167,313 +49,783 @@ class Player {
 
 // Represents out world
 class MazeWorld extends World {
-  // Represents the grid we use
-  ArrayList<ArrayList<Vertex>> maze;
-  ArrayList<Vertex> alreadySeen;
-  ArrayList<Vertex> workList;
-  ArrayList<Vertex> curSearchPath;
-  ArrayList<Edge> initialEdges;
-  ArrayList<Edge> tree;
-  ArrayList<Vertex> correctPath;
-
-  // Represents the map of our tree
-  HashMap<Vertex, Vertex> map;
-  HashMap<Vertex, Vertex> path = new HashMap<Vertex, Vertex>();
+  // Represents the grid we use. The vertices are the corners where walls
+  // meet, and the cells of the maze sit between them, so only the top left
+  // (mazeWidth - 1) x (mazeHeight - 1) cells of the grid are playable
+  MazeGrid grid;
+  // Cells already seen by the player or a search, and cells on the solution
+  CellSet seen;
+  CellSet onPath;
+  // The picture of the maze, made the first time the scene is drawn
+  MazeLayer layer;
+  WorldImage playerImage;
+  WorldImage endImage;
+  // Makes the walls of each new maze, with the algorithm of the given name
+  MazeGenerator generator;
+  String algorithm;
+  // Where the walls and the per-cell state of the maze are kept
+  MazeStorage storage;
+  // Whether the grid was made here rather than loaded, so later mazes of the
+  // same size can be made in it
+  boolean ownsGrid;
+  ArrayList<Integer> correctPath;
+  // The solver started with one of the solver keys, if any
+  MazeSolver solver;
+  // How much of the solver runs on each tick
+  StepPolicy stepPolicy;
+  // Seconds between ticks, which the adaptive step policy plans around
+  double tickRate;
 
   // Represents the last cell of the maze
-  Vertex end;
+  int end;
+  // How far each cell is from the end and which way leads there, found once
+  // per maze
+  DistanceField distances;
+  // The maze as a tree hung from the end, for the way between any two cells
+  CellTree tree;
+  // The junctions and corridors of the maze, for dashing and junction solvers
+  JunctionGraph junctions;
+  // The agents exploring the maze alongside the player, if started
+  Swarm swarm;
+  // Whether the scene tells the player how far the end is and which way to go
+  boolean showHints;
+  // The last race between the solvers, shown side by side while it is set,
+  // and the picture of each solver's panel
+  SolverRace race;
+  MazeLayer[] racePanels;
+  // What the world measures about itself, and whether the scene shows it
+  MazeMetrics metrics;
+  boolean showMetrics;
+  // The lines of the last comparison asked for, shown in the scene until the
+  // next maze, or null
+  ArrayList<String> report;
+  // What became of the last picture exported, shown in the scene until the
+  // next maze, or null
+  String exportMessage;
+  // The endless maze being explored, if any, of which the grid holds the
+  // WINDOW_CHUNKS x WINDOW_CHUNKS chunks around the player, the top left one
+  // being chunk (windowX, windowY)
+  ChunkedMaze endless;
+  int windowX;
+  int windowY;
+  // The size of the maze to go back to after exploring an endless one
+  int boundedWidth;
+  int boundedHeight;
 
   // Represents the player
   Player player;
   Random rand = new Random();
+  // The seed the current maze was made from
+  long seed;
+  // Pixels per cell, and cells per pixel once zoomed out past one pixel a cell
   int vertexSize;
+  int blockSize;
+  int zoomLevel;
+  // Size of the window the camera shows
+  int viewWidth;
+  int viewHeight;
   int mazeWidth;
   int mazeHeight;
-  boolean depthFirst;
-  boolean breadthFirst;
   boolean reachedEnd;
   boolean found;
+  // Whether the layer must be painted over because the maze was made again
+  // in place
+  boolean repaint;
+
+  // The generators that can make the mazes, in the order the generator key
+  // goes through them
+  static final String[] GENERATORS = { "kruskal", "eller", "backtracker", "wilson",
+      "sidewinder", "binary-tree" };
+  // The keys that start each solver
+  static final String[] SOLVER_KEYS = { "n", "m", "v", "b", "f", "k", "l" };
+  // The keys that dash right, down, left and up to the next junction, in the
+  // order of the MazeGrid directions
+  static final String[] DASH_KEYS = { "D", "S", "A", "W" };
+  // Seconds between ticks unless the world is started with play
+  static final double DEFAULT_TICK_RATE = 1.0 / 30;
+  // Pixels per cell at each zoom level, closest first. Past the last level
+  // each pixel stands for a block of cells, doubling in width every level.
+  static final int[] ZOOM_SIZES = { 40, 20, 10, 5, 3, 1 };
+  static final int DEFAULT_ZOOM = 2;
+  // Window size unless the world is started with play
+  static final int DEFAULT_VIEW_WIDTH = 1000;
+  static final int DEFAULT_VIEW_HEIGHT = 700;
+  // Size in pixels of the player and end markers when zoomed out
+  static final int MARKER_SIZE = 3;
+  // Pixels above each panel of a race for its label
+  static final int RACE_LABEL = 16;
+  // Number of agents in a swarm, and steps each takes every tick
+  static final int SWARM_AGENTS = 10000;
+  static final int SWARM_STEPS = 1;
+  // Cells across each chunk of an endless maze, chunks across the grid, and
+  // chunks kept in memory
+  static final int CHUNK_SIZE = 32;
+  static final int WINDOW_CHUNKS = 3;
+  static final int CHUNK_CACHE = 64;
+  // About how many pixels across an exported picture is, and the most pixels
+  // a cell takes in one
+  static final int EXPORT_PIXELS = 4000;
+  static final int EXPORT_MAX_CELL_PIXELS = 8;
+  // Mazes with at least this many vertices are made on every core, if there
+  // is more than one
+  static final int PARALLEL_FROM = 1 << 20;
 
   MazeWorld(int mazeWidth, int mazeHeight) {
     this.mazeWidth = mazeWidth;
     this.mazeHeight = mazeHeight;
-    this.vertexSize = 10;
-    this.depthFirst = false;
-    this.breadthFirst = false;
+    this.zoomLevel = DEFAULT_ZOOM;
+    this.vertexSize = ZOOM_SIZES[DEFAULT_ZOOM];
+    this.blockSize = 1;
+    this.viewWidth = DEFAULT_VIEW_WIDTH;
+    this.viewHeight = DEFAULT_VIEW_HEIGHT;
     this.found = false;
+    this.algorithm = GENERATORS[0];
+    this.storage = MazeStorage.heap();
+    this.generator = generatorFor(this.algorithm, mazeWidth, mazeHeight, this.storage);
+    this.tickRate = DEFAULT_TICK_RATE;
+    this.stepPolicy = StepPolicy.adaptive(this.tickRate);
+    this.metrics = new MazeMetrics();
   }
 
   /*- 
    * Fields:
-   * ... this.maze ... -- ArrayList<ArrayList<Vertex>>
-   * ... this.map ... -- HashMap<Vertex, Vertex>
-   * ... this.initialEdges ... -- ArrayList<Edge>
-   * ... this.tree ... -- ArrayList<Edge>
+   * ... this.grid ... -- MazeGrid
+   * ... this.seen ... -- CellSet
+   * ... this.onPath ... -- CellSet
+   * ... this.layer ... -- MazeLayer
+   * ... this.generator ... -- MazeGenerator
+   * ... this.algorithm ... -- String
+   * ... this.storage ... -- MazeStorage
+   * ... this.ownsGrid ... -- boolean
+   * ... this.solver ... -- MazeSolver
+   * ... this.stepPolicy ... -- StepPolicy
+   * ... this.tickRate ... -- double
+   * ... this.distances ... -- DistanceField
+   * ... this.tree ... -- CellTree
+   * ... this.junctions ... -- JunctionGraph
+   * ... this.swarm ... -- Swarm
+   * ... this.showHints ... -- boolean
+   * ... this.race ... -- SolverRace
+   * ... this.racePanels ... -- MazeLayer[]
+   * ... this.metrics ... -- MazeMetrics
+   * ... this.showMetrics ... -- boolean
+   * ... this.report ... -- ArrayList<String>
+   * ... this.exportMessage ... -- String
+   * ... this.endless ... -- ChunkedMaze
+   * ... this.windowX ... -- int
+   * ... this.windowY ... -- int
+   * ... this.boundedWidth ... -- int
+   * ... this.boundedHeight ... -- int
    * ... this.player ... -- Player
    * ... this.rand ... -- Random
+   * ... this.seed ... -- long
    * ... this.vertexSize ... -- int
+   * ... this.blockSize ... -- int
+   * ... this.zoomLevel ... -- int
+   * ... this.viewWidth ... -- int
+   * ... this.viewHeight ... -- int
    * ... this.mazeWidth ... -- int
    * ... this.mazeHeight ... -- int
    * Methods
+   * ... MazeWorld.generatorFor(int, int) ... -- KruskalGenerator
+   * ... MazeWorld.generatorFor(String, int, int) ... -- MazeGenerator
+   * ... MazeWorld.generatorFor(String, int, int, MazeStorage) ... -- MazeGenerator
+   * ... this.useGenerator(String) ... -- void
+   * ... this.compareGenerators() ... -- ArrayList<String>
    * ... this.initMaze() ... -- void
-   * ... this.generateAdjacent() ... -- void
-   * ... this.addBorders() ... -- void
-   * ... this.buildWalls() ... -- void
-   * ... this.union(Vertex, Vertex) ... -- void
-   * ... this.unionFind(Vertex) ... -- Vertex
-   * ... this.initMap() ... -- void
-   * ... this.mazeScene() ... -- WorldImage
+   * ... this.startMaze(MazeGrid) ... -- void
+   * ... this.restartMaze() ... -- void
+   * ... this.useStorage(MazeStorage) ... -- void
+   * ... this.saveMaze(File) ... -- void
+   * ... this.loadMaze(File) ... -- void
+   * ... this.exportPicture(File) ... -- void
+   * ... this.savePicture(File) ... -- void
+   * ... this.distances() ... -- DistanceField
+   * ... this.tree() ... -- CellTree
+   * ... this.junctions() ... -- JunctionGraph
+   * ... this.dash(int) ... -- void
+   * ... this.swarmTick() ... -- void
+   * ... this.toggleEndless() ... -- void
+   * ... this.startEndless(long) ... -- void
+   * ... this.followEndless() ... -- void
+   * ... this.toggleMetrics() ... -- void
+   * ... this.hint() ... -- String
+   * ... this.showRemainingPath() ... -- void
+   * ... this.makeScene() ... -- WorldScene
+   * ... this.zoom(int) ... -- void
+   * ... this.drawMarker(Color) ... -- WorldImage
+   * ... this.markSeen(int) ... -- void
+   * ... this.markOnPath(int) ... -- void
    * ... this.worldEnds() ... -- WorldEnd
-   * ... this.determinePaths() ... -- void
+   * ... this.generateSolution() ... -- void
+   * ... this.makeSolver(String) ... -- MazeSolver
+   * ... this.compareSolvers() ... -- ArrayList<String>
+   * ... this.startRace() ... -- void
+   * ... this.racePanel(int, int) ... -- MazeLayer
+   * ... this.raceScene() ... -- WorldScene
    * ... this.onTick() ... -- void
+   * ... this.solveStep() ... -- void
+   * ... this.play(int, int, double) ... -- boolean
    * ... this.onKeyEvent(String) ... -- void
    */
 
-  // EFFECT: Initializes maze data structure with Vertices and
-  void initMaze() {
-    map = new HashMap<Vertex, Vertex>();
-    maze = new ArrayList<ArrayList<Vertex>>();
-    initialEdges = new ArrayList<Edge>();
-    tree = new ArrayList<Edge>();
-    correctPath = new ArrayList<Vertex>();
-    curSearchPath = new ArrayList<Vertex>();
-    workList = new ArrayList<Vertex>();
-    alreadySeen = new ArrayList<Vertex>();
-    this.reachedEnd = false;
-
-    for (int i = 0; i < mazeHeight; i++) {
-      ArrayList<Vertex> row = new ArrayList<Vertex>();
-      for (int j = 0; j < mazeWidth; j++) {
-        row.add(new Vertex(j, i));
-      }
-      this.maze.add(row);
+  // Returns the generator for mazes of the given size
+  static KruskalGenerator generatorFor(int mazeWidth, int mazeHeight) {
+    if ((long) mazeWidth * mazeHeight >= PARALLEL_FROM
+        && Runtime.getRuntime().availableProcessors() > 1) {
+      return new ParallelKruskalGenerator(mazeWidth, mazeHeight);
     }
-    this.player = new Player(0, 0, Color.GREEN);
-    this.generateAdjacent();
-    this.initMap();
-    this.buildWalls();
-    this.workList.add(this.maze.get(0).get(0));
-    this.end = this.maze.get(this.maze.size() - 2).get(this.maze.get(0).size() - 2);
-  }
-
-  // EFFECT: Intializes down and right edges between vertices. As well as
-  // intiaziles the up and left fields for the other vertex
-  void generateAdjacent() {
-    for (int i = 0; i < mazeHeight; i++) {
-      for (int j = 0; j < mazeWidth; j++) {
-        Vertex v = this.maze.get(i).get(j);
-        if (i < mazeHeight - 1) {
-          v.down = this.maze.get(i + 1).get(j);
-          this.maze.get(i + 1).get(j).up = v;
-          Edge e = new Edge(rand.nextInt(50), v.down, v);
-          this.initialEdges.add(e);
-        }
-        if (j < mazeWidth - 1) {
-          v.right = this.maze.get(i).get(j + 1);
-          this.maze.get(i).get(j + 1).left = v;
-          Edge e = new Edge(rand.nextInt(50), v.right, v);
-          this.initialEdges.add(e);
-        }
-      }
+    return new KruskalGenerator(mazeWidth, mazeHeight);
+  }
+
+  // Returns the generator for mazes of the given size with the algorithm of
+  // the given name, one of GENERATORS
+  static MazeGenerator generatorFor(String algorithm, int mazeWidth, int mazeHeight) {
+    if (algorithm.equals("kruskal")) {
+      return generatorFor(mazeWidth, mazeHeight);
+    } else if (algorithm.equals("eller")) {
+      return new EllerGenerator(mazeWidth, mazeHeight);
+    } else if (algorithm.equals("backtracker")) {
+      return new BacktrackerGenerator(mazeWidth, mazeHeight);
+    } else if (algorithm.equals("wilson")) {
+      return new WilsonGenerator(mazeWidth, mazeHeight);
+    } else if (algorithm.equals("sidewinder")) {
+      return new SidewinderGenerator(mazeWidth, mazeHeight);
+    } else if (algorithm.equals("binary-tree")) {
+      return new BinaryTreeGenerator(mazeWidth, mazeHeight);
+    } else {
+      throw new IllegalArgumentException("No generator is called " + algorithm);
     }
-    Collections.sort(initialEdges, new EdgeComparator());
   }
 
-  // EFFECT: Calls checkPaths on all vertex's in the maze, then sets the hasRight
-  // and hasDown
-  // fields accordingly
-  void determinePaths() {
-    for (int i = 0; i < mazeHeight; i++) {
-      ArrayList<Vertex> row = this.maze.get(i);
-      for (int j = 0; j < mazeWidth; j++) {
-        Vertex v = row.get(j);
-        if (j < mazeWidth - 1) {
-          v.checkPaths();
-        }
-        if (i < mazeHeight - 1) {
-          v.checkPaths();
-        }
-      }
+  // Returns the generator for mazes of the given size with the algorithm of
+  // the given name, for a world keeping its mazes in the given storage. Off
+  // the heap, Kruskal's algorithm is run by the serial generator with its
+  // union-find and edge order in that storage, since the parallel one keeps
+  // its working arrays on the heap.
+  static MazeGenerator generatorFor(String algorithm, int mazeWidth, int mazeHeight,
+      MazeStorage storage) {
+    if (storage.offHeap && algorithm.equals("kruskal")) {
+      return new KruskalGenerator(mazeWidth, mazeHeight, storage);
     }
+    return generatorFor(algorithm, mazeWidth, mazeHeight);
+  }
+
+  // EFFECT: Makes the mazes from now on with the algorithm of the given name
+  void useGenerator(String algorithm) {
+    this.generator = generatorFor(algorithm, mazeWidth, mazeHeight, this.storage);
+    this.algorithm = algorithm;
+  }
 
-    for (int i = 0; i < mazeHeight; i++) {
-      ArrayList<Vertex> row = this.maze.get(i);
-      for (int j = 0; j < mazeWidth; j++) {
-        Vertex v = row.get(j);
-        if (j > 0) {
-          if (!v.hasLeft) {
-            row.get(j - 1).hasRight = false;
+  // Returns a report of how long each generator takes to make a maze of this
+  // size, and how long the solution and how many the dead ends of its maze are
+  ArrayList<String> compareGenerators() {
+    ArrayList<String> reports = new ArrayList<String>();
+    for (String name : GENERATORS) {
+      MazeGenerator g = generatorFor(name, mazeWidth, mazeHeight);
+      long before = System.nanoTime();
+      MazeGrid maze = g.generate(this.seed);
+      long nanos = System.nanoTime() - before;
+      int deadEnds = 0;
+      for (int y = 0; y < mazeHeight - 1; y++) {
+        for (int x = 0; x < mazeWidth - 1; x++) {
+          int open = 0;
+          for (int dir = 0; dir < 4; dir++) {
+            if (maze.canMove(maze.index(x, y), dir)) {
+              open++;
+            }
           }
-        }
-        if (i > 0) {
-          if (!v.hasUp) {
-            maze.get(i - 1).get(j).hasDown = false;
+          if (open == 1) {
+            deadEnds++;
           }
         }
       }
+      int path = new DistanceField(maze, this.end).distanceFrom(0);
+      reports.add(name + ": " + (nanos / 1000) / 1000.0 + " ms, path " + path + ", "
+          + deadEnds + " dead ends");
     }
+    return reports;
   }
 
-  // EFFECT: Adds the borders of the entire maze to the tree field, and to the
-  // outedges of their
-  // corresponding vertex
-  void addBorders() {
-    for (Edge e : initialEdges) {
-      Vertex to = e.to;
-      Vertex from = e.from;
-      if (e.to.pos.x == 0 && e.from.pos.x == 0) {
-        this.tree.add(e);
-        this.union(to, from, map);
-        from.outEdges.add(e);
-      }
-      if (e.to.pos.y == 0 && e.from.pos.y == 0) {
-        this.tree.add(e);
-        this.union(to, from, map);
-        from.outEdges.add(e);
-      }
-      if (e.to.pos.x == mazeWidth - 1 && e.from.pos.x == mazeWidth - 1) {
-        this.tree.add(e);
-        this.union(to, from, map);
-        from.outEdges.add(e);
-      }
-      if (e.to.pos.y == mazeHeight - 1 && e.from.pos.y == mazeHeight - 1) {
-        this.tree.add(e);
-        this.union(to, from, map);
-        from.outEdges.add(e);
-      }
+  // EFFECT: Makes a new maze. While the size stays the same, the new maze is
+  // made in the buffers of the last one, so nothing is allocated.
+  void initMaze() {
+    boolean measure = this.metrics.enabled;
+    long before = measure ? System.nanoTime() : 0;
+    this.seed = rand.nextLong();
+    if (this.ownsGrid && this.grid.width == mazeWidth && this.grid.height == mazeHeight) {
+      this.generator.generateInto(this.seed, this.grid);
+      this.restartMaze();
+    } else {
+      this.startMaze(generator.generateInto(this.seed, storage.grid(mazeWidth, mazeHeight)));
+      this.ownsGrid = true;
+    }
+    long built = measure ? System.nanoTime() : 0;
+    if (this.distances == null) {
+      this.distances = new DistanceField(this.grid, this.end, this.storage);
+    } else {
+      this.distances.build();
+    }
+    if (this.tree == null) {
+      this.tree = new CellTree(this.distances, this.storage);
+    } else {
+      this.tree.build();
+    }
+    if (measure) {
+      this.metrics.mazeMade(this.generator, built - before, System.nanoTime() - built,
+          this.grid.size());
     }
   }
 
-  // EFFECT: Applies Kriskals algorithm to the list of edges, generating a tree
-  void buildWalls() {
-    int i = 0;
-    this.addBorders();
-    while (i < (this.mazeHeight * this.mazeWidth) - 1) {
-      Edge origin = this.initialEdges.get(i);
-      Vertex v1 = origin.to;
-      Vertex v2 = origin.from;
-      if (!this.unionFind(v1, map).equals(this.unionFind(v2, map))) {
-        tree.add(origin);
-        this.union(v1, v2, map);
-        v2.outEdges.add(origin);
-        v1.outEdges.add(new Edge(origin.weight, v2, v1));
-      }
-      i++;
+  // EFFECT: Starts over in the given maze, with nothing seen or solved yet
+  void startMaze(MazeGrid maze) {
+    grid = maze;
+    seen = storage.cells(grid.size());
+    onPath = storage.cells(grid.size());
+    layer = null;
+    correctPath = new ArrayList<Integer>();
+    distances = null;
+    tree = null;
+    this.player = new Player(0, 0, Color.GREEN);
+    this.restartMaze();
+  }
+
+  // EFFECT: Starts over in the current maze, which may have been made again
+  // in place, clearing what was seen and solved but keeping the buffers
+  void restartMaze() {
+    seen.clear();
+    onPath.clear();
+    correctPath.clear();
+    solver = null;
+    race = null;
+    junctions = null;
+    swarm = null;
+    this.report = null;
+    this.exportMessage = null;
+    this.reachedEnd = false;
+    this.found = false;
+    this.repaint = true;
+
+    this.player.x = 0;
+    this.player.y = 0;
+    this.end = this.grid.index(mazeWidth - 2, mazeHeight - 2);
+  }
+
+  // EFFECT: Keeps the walls and per-cell state of the mazes made from now on
+  // in the given storage
+  void useStorage(MazeStorage storage) {
+    this.storage = storage;
+    this.generator = generatorFor(this.algorithm, mazeWidth, mazeHeight, storage);
+    this.ownsGrid = false;
+  }
+
+  // EFFECT: Writes the current maze to the given file
+  void saveMaze(File file) throws IOException {
+    MazeFile.save(this.grid, this.seed, this.generator.name(), file);
+  }
+
+  // EFFECT: Writes a picture of the whole maze to the given PNG file, with the
+  // cells seen, the solution found so far, the player and the end
+  void exportPicture(File file) throws IOException {
+    int cellPixels = Math.max(1, Math.min(EXPORT_MAX_CELL_PIXELS,
+        EXPORT_PIXELS / (mazeWidth - 1) - 1));
+    new MazePng(this.grid, this.seen, this.onPath, this.grid.index(player.x, player.y),
+        this.endless == null ? this.end : -1, cellPixels).write(file);
+  }
+
+  // EFFECT: Writes a picture of the whole maze to the given PNG file, and
+  // tells the player in the scene whether it was written or why not
+  void savePicture(File file) {
+    long before = System.nanoTime();
+    try {
+      this.exportPicture(file);
+      this.exportMessage = "Wrote " + file + " in " + (System.nanoTime() - before) / 1000000
+          + " ms";
+    } catch (IOException e) {
+      this.exportMessage = "Could not write " + file + ": " + e.getMessage();
     }
-    this.determinePaths();
   }
 
-  // EFFECT: Sets v1's representative to v2's representative in the map field
-  void union(Vertex v1, Vertex v2, HashMap<Vertex, Vertex> map) {
-    map.put(this.unionFind(v1, map), this.unionFind(v2, map));
+  // EFFECT: Starts over in the maze saved in the given file. New mazes made
+  // afterwards take its size.
+  void loadMaze(File file) throws IOException {
+    MazeFile loaded = MazeFile.load(file);
+    if (loaded.width != mazeWidth || loaded.height != mazeHeight) {
+      this.mazeWidth = loaded.width;
+      this.mazeHeight = loaded.height;
+      this.generator = generatorFor(this.algorithm, mazeWidth, mazeHeight, this.storage);
+    }
+    this.seed = loaded.seed;
+    this.startMaze(loaded.grid);
+    this.ownsGrid = false;
   }
 
-  // Returns the vertex associated with the given vertex
-  Vertex unionFind(Vertex v1, HashMap<Vertex, Vertex> map) {
-    if (map.get(v1).equals(v1)) {
-      return v1;
-    } else {
-      return this.unionFind(map.get(v1), map);
+  // Returns how far each cell is from the end and which way leads there
+  // EFFECT: Finds them, if they have not been found for this maze yet, as for
+  // a loaded maze
+  DistanceField distances() {
+    if (this.distances == null) {
+      this.distances = new DistanceField(this.grid, this.end, this.storage);
     }
+    return this.distances;
   }
 
-  // EFFECT: Initializes the hashmap
-  void initMap() {
-    for (int i = 0; i < this.mazeHeight; i++) {
-      ArrayList<Vertex> row = this.maze.get(i);
-      for (int j = 0; j < this.mazeWidth; j++) {
-        this.map.put(row.get(j), row.get(j));
-      }
+  // Returns the maze as a tree, for the way between any two cells
+  // EFFECT: Builds it, if it has not been built for this maze yet
+  CellTree tree() {
+    if (this.tree == null) {
+      this.tree = new CellTree(this.distances(), this.storage);
     }
+    return this.tree;
   }
 
-  // EFFECT: On key presses moves the player to a spot if they are capable.
-  @Override
-  public void onKeyEvent(String s) {
-    Vertex current = this.maze.get(player.y).get(player.x);
-    if (s.equals("s") && current.hasDown) {
-      current.alreadySeen = true;
+  // Returns the junctions and corridors between the start and the end
+  // EFFECT: Finds them, if they have not been found for this maze yet
+  JunctionGraph junctions() {
+    if (this.junctions == null) {
+      this.junctions = new JunctionGraph(this.grid, 0, this.end, this.storage);
+    }
+    return this.junctions;
+  }
 
-      this.player.y += 1;
-      current.down.previous = current;
+  // EFFECT: Moves the player in the given direction, if they can, and on
+  // down the corridor to the next junction, dead end, start or end
+  void dash(int dir) {
+    int current = this.grid.index(player.x, player.y);
+    if (!this.grid.canMove(current, dir)) {
+      return;
+    }
+    IntDeque cells = new IntDeque(64);
+    cells.addFirst(current);
+    this.junctions().follow(current, dir, cells);
+    for (int i = 0; i < cells.size - 1; i++) {
+      this.markSeen(cells.get(i));
+    }
+    int last = cells.removeLast();
+    this.player.x = this.grid.xOf(last);
+    this.player.y = this.grid.yOf(last);
+  }
 
+  // EFFECT: Starts exploring an endless maze made from a new seed, or goes
+  // back to a new maze of the size played before
+  void toggleEndless() {
+    if (this.endless == null) {
+      this.boundedWidth = mazeWidth;
+      this.boundedHeight = mazeHeight;
+      this.startEndless(rand.nextLong());
+    } else {
+      this.endless = null;
+      this.mazeWidth = boundedWidth;
+      this.mazeHeight = boundedHeight;
+      this.generator = generatorFor(this.algorithm, mazeWidth, mazeHeight, this.storage);
+      this.initMaze();
     }
-    if (s.equals("w") && current.hasUp) {
-      current.alreadySeen = true;
+  }
 
-      this.player.y -= 1;
-      current.up.previous = current;
+  // EFFECT: Starts exploring the endless maze made from the given seed, with
+  // the player at the top left of chunk (0, 0) in the middle of the grid
+  void startEndless(long seed) {
+    this.seed = seed;
+    this.endless = new ChunkedMaze(seed, CHUNK_SIZE, CHUNK_CACHE, null);
+    this.mazeWidth = CHUNK_SIZE * WINDOW_CHUNKS + 1;
+    this.mazeHeight = CHUNK_SIZE * WINDOW_CHUNKS + 1;
+    this.windowX = -(WINDOW_CHUNKS / 2);
+    this.windowY = -(WINDOW_CHUNKS / 2);
+    this.startMaze(this.endless.window(windowX, windowY, WINDOW_CHUNKS,
+        storage.grid(mazeWidth, mazeHeight)));
+    this.ownsGrid = false;
+    this.player.x = CHUNK_SIZE * (WINDOW_CHUNKS / 2);
+    this.player.y = CHUNK_SIZE * (WINDOW_CHUNKS / 2);
+  }
 
+  // EFFECT: If the player has left the middle chunk of the grid, moves the
+  // grid over the endless maze so their chunk is in the middle again. What
+  // was seen and solved is let go, so however far the player goes the grid,
+  // its sets and the cache of chunks stay the same size.
+  void followEndless() {
+    int dx = player.x / CHUNK_SIZE - WINDOW_CHUNKS / 2;
+    int dy = player.y / CHUNK_SIZE - WINDOW_CHUNKS / 2;
+    if (dx == 0 && dy == 0) {
+      return;
     }
-    if (s.equals("a") && current.hasLeft) {
-      current.alreadySeen = true;
+    this.windowX += dx;
+    this.windowY += dy;
+    this.endless.window(windowX, windowY, WINDOW_CHUNKS, this.grid);
+    int x = player.x - dx * CHUNK_SIZE;
+    int y = player.y - dy * CHUNK_SIZE;
+    this.restartMaze();
+    if (this.distances != null) {
+      this.distances.build();
+    }
+    if (this.tree != null) {
+      this.tree.build();
+    }
+    this.player.x = x;
+    this.player.y = y;
+  }
 
-      this.player.x -= 1;
-      current.left.previous = current;
+  // EFFECT: Shows or hides the metrics overlay, recording metrics only while
+  // it is shown
+  void toggleMetrics() {
+    this.showMetrics = !this.showMetrics;
+    this.metrics.enabled = this.showMetrics;
+  }
+
+  // Returns how many steps the player is from the end and which way to go
+  String hint() {
+    int current = this.grid.index(player.x, player.y);
+    int steps = this.distances().distanceFrom(current);
+    if (steps == 0) {
+      return "At the end";
+    }
+    String[] names = { "right", "down", "left", "up" };
+    return steps + " steps to the end, go " + names[this.distances().nextMove(current)];
+  }
 
+  // EFFECT: Marks the way from the player to the end as on the solution
+  void showRemainingPath() {
+    for (int cell : this.distances().pathFrom(this.grid.index(player.x, player.y))) {
+      this.markOnPath(cell);
     }
-    if (s.equals("d") && current.hasRight) {
-      current.alreadySeen = true;
+  }
 
+  // EFFECT: On key presses moves the player to a spot if they are capable.
+  @Override
+  public void onKeyEvent(String s) {
+    int current = this.grid.index(player.x, player.y);
+    if (s.equals("s") && this.grid.canMove(current, MazeGrid.DOWN)) {
+      this.markSeen(current);
+      this.player.y += 1;
+    }
+    if (s.equals("w") && this.grid.canMove(current, MazeGrid.UP)) {
+      this.markSeen(current);
+      this.player.y -= 1;
+    }
+    if (s.equals("a") && this.grid.canMove(current, MazeGrid.LEFT)) {
+      this.markSeen(current);
+      this.player.x -= 1;
+    }
+    if (s.equals("d") && this.grid.canMove(current, MazeGrid.RIGHT)) {
+      this.markSeen(current);
       this.player.x += 1;
-      current.right.previous = current;
+    }
+
+    for (int dir = 0; dir < DASH_KEYS.length; dir++) {
+      if (s.equals(DASH_KEYS[dir])) {
+        this.dash(dir);
+      }
+    }
+    if (this.endless != null) {
+      this.followEndless();
+    }
 
+    MazeSolver chosen = this.makeSolver(s);
+    if (chosen != null) {
+      this.solver = chosen;
+    }
+    if (s.equals("c")) {
+      this.report = this.compareSolvers();
+    }
+    // Race every solver at once and show them side by side, or go back
+    if (s.equals("q")) {
+      if (this.race == null) {
+        this.startRace();
+      } else {
+        this.race = null;
+        this.repaint = true;
+      }
+    }
+    // Jump straight to the end of the current solve
+    if (s.equals("j") && this.solver != null) {
+      while (!this.found && !this.solver.isDone()) {
+        this.solveStep();
+      }
+    }
+    if (s.equals("=")) {
+      this.zoom(-1);
+    }
+    if (s.equals("-")) {
+      this.zoom(1);
+    }
+    if (s.equals("h")) {
+      this.showHints = !this.showHints;
+    }
+    if (s.equals("g")) {
+      this.showRemainingPath();
+    }
+    // Start or stop a swarm of agents exploring the maze
+    if (s.equals("x")) {
+      if (this.swarm == null) {
+        this.swarm = new Swarm(this.grid, 0, this.end, SWARM_AGENTS, this.seed,
+            ForkJoinPool.commonPool());
+      } else {
+        this.swarm = null;
+      }
+    }
+    // Switch between one step per tick and as many as the tick has time for
+    if (s.equals("t")) {
+      if (this.stepPolicy.adaptive) {
+        this.stepPolicy = StepPolicy.steps(1);
+      } else {
+        this.stepPolicy = StepPolicy.adaptive(this.tickRate);
+      }
     }
 
-    if (s.equals("n")) {
-      breadthFirst = true;
+    // Make the next maze with the next generator, or compare them all
+    if (s.equals("r")) {
+      int next = (Arrays.asList(GENERATORS).indexOf(this.algorithm) + 1) % GENERATORS.length;
+      this.useGenerator(GENERATORS[next]);
+      if (this.endless == null) {
+        this.initMaze();
+      }
+    }
+    if (s.equals("R")) {
+      this.report = this.compareGenerators();
+    }
+    if (s.equals("i")) {
+      this.toggleMetrics();
     }
-    if (s.equals("m")) {
-      depthFirst = true;
+    // Write a picture of the whole maze next to where the game was started
+    if (s.equals("p")) {
+      this.savePicture(new File("maze-" + this.seed + ".png"));
+    }
+    // Start or stop exploring an endless maze
+    if (s.equals("e")) {
+      this.toggleEndless();
     }
 
     // If the player hits enter, reset maze.
     if (s.equals("enter")) {
-      this.initMaze();
+      if (this.endless != null) {
+        this.startEndless(rand.nextLong());
+      } else {
+        this.initMaze();
+      }
     }
   }
 
-  // Builds the scene, drawing each vertex in the maze field, and the edges
-  // between vertices
+  // Builds the scene from the picture of the part of the maze around the
+  // player, painting only the cells that changed since the last frame unless
+  // the camera moved, with the player and the end on top
   @Override
   public WorldScene makeScene() {
-    WorldScene ws = new WorldScene((mazeWidth - 1) * vertexSize, (mazeHeight - 1) * vertexSize);
-    int offset = vertexSize / 2;
-
-    // Draw all vertices/cells
-    for (ArrayList<Vertex> row : this.maze) {
-      for (Vertex v : row) {
-        ws.placeImageXY(v.drawVertex(vertexSize).movePinhole(-offset, -offset),
-            (v.pos.x) * vertexSize, (v.pos.y) * vertexSize);
-      }
+    if (this.race != null) {
+      return this.raceScene();
+    }
+    long before = System.nanoTime();
+    // The scene and the images made for it, counted for the metrics
+    int images = 1;
+    if (this.layer == null) {
+      this.layer = new MazeLayer(mazeWidth - 1, mazeHeight - 1, viewWidth, viewHeight,
+          vertexSize, blockSize, this.storage.cells(this.grid.size()));
+      this.layer.follow(player.x, player.y);
+      this.layer.paintAll(this.grid, this.seen, this.onPath);
+      this.playerImage = this.drawMarker(this.player.col);
+      this.endImage = this.drawMarker(Color.RED);
+      images += 3;
+    } else if (this.layer.follow(player.x, player.y) || this.repaint) {
+      this.layer.paintAll(this.grid, this.seen, this.onPath);
+    } else {
+      this.layer.paintDirty(this.grid, this.seen, this.onPath);
     }
 
-    // Draw Player and last vertex
-    ws.placeImageXY(this.player.drawPlayer(vertexSize).movePinhole(-offset, -offset),
-        player.x * vertexSize, player.y * vertexSize);
-    ws.placeImageXY(
-        new RectangleImage(this.vertexSize, this.vertexSize, OutlineMode.SOLID, Color.RED)
-            .movePinhole(-offset, -offset),
-        maze.get(mazeHeight - 2).get(mazeWidth - 2).pos.x * vertexSize,
-        maze.get(mazeHeight - 2).get(mazeWidth - 2).pos.y * vertexSize);
-
-    // Draw edges between vertices
-    for (Edge e : this.tree) {
-      Vertex v1 = e.from;
-      Vertex v2 = e.to;
-      Posn pos1 = v1.pos;
-      if (v1.pos.x == v2.pos.x) {
-        ws.placeImageXY(e.drawVerticalWall(vertexSize).movePinhole(0, -this.vertexSize / 2),
-            pos1.x * this.vertexSize, pos1.y * this.vertexSize);
-      } else {
-        ws.placeImageXY(e.drawHorizontalWall(vertexSize).movePinhole(-this.vertexSize / 2, 0),
-            pos1.x * this.vertexSize, pos1.y * this.vertexSize);
+    this.repaint = false;
+    int width = this.layer.pixelsWide;
+    int height = this.layer.pixelsHigh;
+    WorldScene ws = new WorldScene(width, height);
+    ws.placeImageXY(this.layer.image, width / 2, height / 2);
+    int endX = this.grid.xOf(this.end);
+    int endY = this.grid.yOf(this.end);
+    // An endless maze has no end to reach
+    if (this.endless == null && this.layer.inView(endX, endY)) {
+      ws.placeImageXY(this.endImage, this.layer.screenX(endX), this.layer.screenY(endY));
+    }
+    if (this.layer.inView(player.x, player.y)) {
+      ws.placeImageXY(this.playerImage, this.layer.screenX(player.x),
+          this.layer.screenY(player.y));
+    }
+    if (this.showHints) {
+      ws.placeImageXY(new TextImage(this.hint(), Color.BLACK), width / 2, 10);
+      images++;
+    }
+    if (this.swarm != null) {
+      ws.placeImageXY(new TextImage(this.swarm.report(), Color.BLACK), width / 2, height - 10);
+      images++;
+    }
+    if (this.showMetrics) {
+      ArrayList<String> lines = this.metrics.lines();
+      for (int i = 0; i < lines.size(); i++) {
+        ws.placeImageXY(new TextImage(lines.get(i), Color.BLUE), width / 2, 30 + 15 * i);
       }
+      images += lines.size();
+    }
+    if (this.report != null) {
+      for (int i = 0; i < this.report.size(); i++) {
+        ws.placeImageXY(new TextImage(this.report.get(i), Color.BLACK), width / 2,
+            height - 50 - 15 * (this.report.size() - 1 - i));
+      }
+      images += this.report.size();
+    }
+    if (this.exportMessage != null) {
+      ws.placeImageXY(new TextImage(this.exportMessage, Color.BLACK), width / 2, height - 30);
+      images++;
     }
 
+    long nanos = System.nanoTime() - before;
+    this.stepPolicy.sceneBuilt(nanos);
+    if (this.metrics.enabled) {
+      this.metrics.frameBuilt(nanos, images);
+    }
     return ws;
   }
 
+  // Returns the marker for a cell in the given colour: the whole cell when
+  // zoomed in, and a small square centred on its block when zoomed out
+  WorldImage drawMarker(Color c) {
+    if (this.layer.isDetailed()) {
+      int offset = vertexSize / 2;
+      return new RectangleImage(vertexSize, vertexSize, OutlineMode.SOLID, c)
+          .movePinhole(-offset, -offset);
+    }
+    return new RectangleImage(MARKER_SIZE, MARKER_SIZE, OutlineMode.SOLID, c);
+  }
+
+  // EFFECT: Zooms out by the given number of levels, or in if it is negative,
+  // stopping at the closest level and at the first one that shows the whole
+  // maze
+  void zoom(int change) {
+    int level = Math.max(0, this.zoomLevel + change);
+    while (level > this.zoomLevel
+        && (mazeWidth - 1) * vertexSize <= viewWidth * blockSize
+        && (mazeHeight - 1) * vertexSize <= viewHeight * blockSize) {
+      level--;
+    }
+    this.zoomLevel = level;
+    if (level < ZOOM_SIZES.length) {
+      this.vertexSize = ZOOM_SIZES[level];
+      this.blockSize = 1;
+    } else {
+      this.vertexSize = 1;
+      this.blockSize = 1 << (level - ZOOM_SIZES.length + 1);
+    }
+    this.layer = null;
+  }
+
+  // EFFECT: Marks the given cell as seen, queueing it to be drawn again
+  void markSeen(int cell) {
+    if (this.seen.add(cell) && this.layer != null) {
+      this.layer.markDirty(cell);
+    }
+  }
+
+  // EFFECT: Marks the given cell as on the solution, queueing it to be drawn
+  // again
+  void markOnPath(int cell) {
+    if (this.onPath.add(cell) && this.layer != null) {
+      this.layer.markDirty(cell);
+    }
+  }
+
   // Determines when the game should end.
   @Override
   public WorldEnd worldEnds() {
@@ -481,85 +833,186 @@ class MazeWorld extends World {
     ws.placeImageXY(new TextImage("Maze Complete", Color.BLACK), this.mazeWidth * vertexSize,
         this.mazeHeight * vertexSize);
     boolean end = false;
-    if (this.player.x == this.end.pos.x && this.player.y == this.end.pos.y) {
+    if (this.endless == null && this.player.x == this.grid.xOf(this.end)
+        && this.player.y == this.grid.yOf(this.end)) {
       end = true;
       return new WorldEnd(end, ws);
     }
     return new WorldEnd(end, this.makeScene());
   }
 
-  // Generates the solution for the maze
+  // Generates the solution for the maze, from the end back to the start
   void generateSolution() {
-    Vertex v = this.end;
-    while (!this.maze.get(0).get(0).equals(v)) {
-      this.correctPath.add(v);
-      v.onCorrectPath = true;
-      v = v.previous;
+    int[] path = this.solver.path();
+    for (int i = path.length - 1; i > 0; i--) {
+      this.correctPath.add(path[i]);
+      this.markOnPath(path[i]);
+    }
+  }
+
+  // Returns the solver started by the given key, or null if the key does not
+  // start one
+  MazeSolver makeSolver(String key) {
+    if (key.equals("n")) {
+      return new BreadthFirstSolver(this.grid, 0, this.end, this.storage);
+    } else if (key.equals("m")) {
+      return new DepthFirstSolver(this.grid, 0, this.end, this.storage);
+    } else if (key.equals("v")) {
+      return new AStarSolver(this.grid, 0, this.end, this.storage);
+    } else if (key.equals("b")) {
+      return new BidirectionalSolver(this.grid, 0, this.end, this.storage);
+    } else if (key.equals("f")) {
+      return new DeadEndFiller(this.grid, 0, this.end, this.storage);
+    } else if (key.equals("k")) {
+      return new JunctionSolver(this.junctions(), false, this.storage);
+    } else if (key.equals("l")) {
+      return new JunctionSolver(this.junctions(), true, this.storage);
+    } else {
+      return null;
+    }
+  }
+
+  // Returns a report of how much work each solver needs to solve this maze
+  ArrayList<String> compareSolvers() {
+    ArrayList<String> reports = new ArrayList<String>();
+    for (String key : SOLVER_KEYS) {
+      ASolver s = (ASolver) this.makeSolver(key);
+      s.solve();
+      reports.add(s.report());
+    }
+    return reports;
+  }
+
+  // EFFECT: Races every solver on this maze, each on a thread of its own, for
+  // raceScene to show
+  void startRace() {
+    MazeSolver[] solvers = new MazeSolver[SOLVER_KEYS.length];
+    for (int i = 0; i < solvers.length; i++) {
+      solvers[i] = this.makeSolver(SOLVER_KEYS[i]);
+    }
+    this.race = new SolverRace(this.grid, solvers, this.storage);
+    this.race.run();
+    this.racePanels = null;
+  }
+
+  // Returns a new picture of the whole maze fitting in the given number of
+  // pixels, at the biggest zoom level that fits
+  MazeLayer racePanel(int width, int height) {
+    int across = mazeWidth - 1;
+    int down = mazeHeight - 1;
+    int cellSize = 1;
+    int block = 1;
+    for (int size : ZOOM_SIZES) {
+      if (across * size <= width && down * size <= height) {
+        cellSize = size;
+        break;
+      }
+    }
+    while ((across + block - 1) / block > width || (down + block - 1) / block > height) {
+      block *= 2;
     }
+    return new MazeLayer(across, down, width, height, cellSize, block,
+        this.storage.cells(this.grid.size()));
   }
 
-  // EFFECT: Performs depth and breadth first searches if they are enabled.
+  // Builds the scene of the last race: a panel for each solver, in two rows,
+  // showing the cells it worked on and its solution under its place and time
+  WorldScene raceScene() {
+    int count = this.race.solvers.length;
+    int columns = (count + 1) / 2;
+    int rows = (count + columns - 1) / columns;
+    int panelWidth = viewWidth / columns;
+    int panelHeight = viewHeight / rows - RACE_LABEL;
+    if (this.racePanels == null) {
+      this.racePanels = new MazeLayer[count];
+      for (int i = 0; i < count; i++) {
+        this.racePanels[i] = this.racePanel(panelWidth, panelHeight);
+        this.racePanels[i].paintAll(this.grid, this.race.seen[i], this.race.onPath[i]);
+      }
+    }
+    WorldScene ws = new WorldScene(viewWidth, viewHeight);
+    for (int i = 0; i < count; i++) {
+      MazeLayer panel = this.racePanels[i];
+      int left = (i % columns) * panelWidth;
+      int top = (i / columns) * (panelHeight + RACE_LABEL);
+      ws.placeImageXY(panel.image, left + panel.pixelsWide / 2,
+          top + RACE_LABEL + panel.pixelsHigh / 2);
+      String label = this.race.place[i] + ". " + this.race.solvers[i].name() + " "
+          + (this.race.nanos[i] / 1000) / 1000.0 + " ms";
+      if (this.race.winner == i) {
+        label += ", winner";
+      }
+      ws.placeImageXY(new TextImage(label, Color.BLACK), left + panelWidth / 2,
+          top + RACE_LABEL / 2);
+    }
+    return ws;
+  }
+
+  // EFFECT: Advances the solver as far as the step policy allows, if one has
+  // been started
   @Override
   public void onTick() {
-    if (depthFirst && workList.size() > 0 && !this.found) {
-      Vertex check = workList.remove(0);
-      if (check.equals(end)) {
-        curSearchPath.add(check);
-        this.generateSolution();
-        found = true;
-      } else if (curSearchPath.contains(check)) {
-        // Do not add anything to the stack
-      } else {
-        if (check.hasDown && !check.down.alreadySeen) {
-          workList.add(0, check.down);
-          check.down.previous = check;
-        }
-        if (check.hasUp && !check.up.alreadySeen) {
-          workList.add(0, check.up);
-          check.up.previous = check;
-        }
-        if (check.hasLeft && !check.left.alreadySeen) {
-          workList.add(0, check.left);
-          check.left.previous = check;
-        }
-        if (check.hasRight && !check.right.alreadySeen) {
-          workList.add(0, check.right);
-          check.right.previous = check;
-        }
-        curSearchPath.add(check);
+    boolean measure = this.metrics.enabled;
+    long before = measure ? System.nanoTime() : 0;
+    long expanded = 0;
+    if (this.swarm != null) {
+      this.swarmTick();
+    }
+    if (this.solver != null && !this.found) {
+      long expandedBefore = this.solver.nodesExpanded();
+      long deadline = System.nanoTime() + this.stepPolicy.budget();
+      int steps = 0;
+      while (!this.found && !this.solver.isDone() && this.stepPolicy.allows(steps, deadline)) {
+        this.solveStep();
+        steps++;
       }
-      check.alreadySeen = true;
+      expanded = this.solver.nodesExpanded() - expandedBefore;
+    }
+    if (measure) {
+      this.metrics.ticked(System.nanoTime() - before, expanded,
+          this.solver == null ? 0 : this.solver.frontierSize());
     }
+  }
 
-    if (breadthFirst && workList.size() > 0) {
-      Vertex check = workList.remove(0);
-      if (check.equals(end)) {
-        curSearchPath.add(check);
-        this.generateSolution();
-        found = true;
-      } else if (curSearchPath.contains(check)) {
-        // Do not add anything to the queue
-      } else {
-        if (check.hasDown && !check.down.alreadySeen) {
-          workList.add(check.down);
-          check.down.previous = check;
-        }
-        if (check.hasUp && !check.up.alreadySeen) {
-          workList.add(check.up);
-          check.up.previous = check;
-        }
-        if (check.hasLeft && !check.left.alreadySeen) {
-          workList.add(check.left);
-          check.left.previous = check;
-        }
-        if (check.hasRight && !check.right.alreadySeen) {
-          workList.add(check.right);
-          check.right.previous = check;
-        }
-        curSearchPath.add(check);
+  // EFFECT: Moves every agent of the swarm, marking the cells they reach as
+  // seen
+  void swarmTick() {
+    this.swarm.tick(SWARM_STEPS);
+    for (int a = 0; a < this.swarm.size(); a++) {
+      this.markSeen(this.swarm.cell[a]);
+    }
+  }
+
+  // EFFECT: Advances the solver by one step, showing the solution once it is
+  // found
+  void solveStep() {
+    int check = this.solver.step();
+    if (check >= 0) {
+      this.markSeen(check);
+    }
+    // A junction solver steps a whole corridor at a time
+    if (this.solver instanceof JunctionSolver) {
+      IntDeque corridors = ((JunctionSolver) this.solver).discovered;
+      for (int i = 0; i < corridors.size; i++) {
+        this.markSeen(corridors.get(i));
       }
-      check.alreadySeen = true;
     }
+    if (this.solver.found()) {
+      this.generateSolution();
+      found = true;
+    }
+  }
+
+  // EFFECT: Starts the game in a window of the given size, ticking every
+  // tickRate seconds
+  boolean play(int width, int height, double tickRate) {
+    this.viewWidth = width;
+    this.viewHeight = height;
+    this.layer = null;
+    this.tickRate = tickRate;
+    this.stepPolicy = StepPolicy.adaptive(tickRate);
+    this.metrics.register(MazeMetrics.OBJECT_NAME);
+    return this.bigBang(width, height, tickRate);
   }
 }
 
@@ -568,8 +1021,6 @@ class ExamplesMazeWorld {
   int width;
   int height;
   ArrayList<Edge> edges;
-  Vertex v;
-  Vertex v1;
   Edge e;
   Edge e1;
   Edge e2;
@@ -579,76 +1030,803 @@ class ExamplesMazeWorld {
     edges = new ArrayList<Edge>();
     width = 10;
     height = 10;
-    e = new Edge(10, v1, v);
-    e1 = new Edge(15, v1, v);
-    e2 = new Edge(20, v1, v);
-    v = new Vertex(0, 0);
-    v1 = new Vertex(1, 0);
+    e = new Edge(10, 1, 0);
+    e1 = new Edge(15, 1, 0);
+    e2 = new Edge(20, 1, 0);
     mw = new MazeWorld(width, height);
     p = new Player(0, 0, Color.GREEN);
   }
 
+  // Returns the Kruskal generator the given world makes its mazes with
+  KruskalGenerator kruskal(MazeWorld w) {
+    return (KruskalGenerator) w.generator;
+  }
+
   void testUnionFind(Tester t) {
     initData();
     mw.initMaze();
-    mw.initMap();
-    t.checkExpect(mw.unionFind(mw.maze.get(0).get(0), mw.map), mw.maze.get(0).get(0));
-    t.checkExpect(mw.unionFind(mw.maze.get(1).get(0), mw.map), mw.maze.get(1).get(0));
-    t.checkExpect(mw.unionFind(mw.maze.get(0).get(1), mw.map), mw.maze.get(0).get(1));
+    this.kruskal(mw).initMap();
+    t.checkExpect(this.kruskal(mw).sets.find(0), 0);
+    t.checkExpect(this.kruskal(mw).sets.find(10), 10);
+    t.checkExpect(this.kruskal(mw).sets.find(1), 1);
+    this.kruskal(mw).sets.union(0, 10);
+    this.kruskal(mw).sets.union(10, 1);
+    t.checkExpect(this.kruskal(mw).sets.find(1), 10);
+    t.checkExpect(this.kruskal(mw).sets.find(0), 10);
   }
 
   void testDeterminePaths(Tester t) {
     initData();
     mw.initMaze();
-    t.checkExpect(mw.maze.get(0).get(0).hasUp, false);
-    t.checkExpect(mw.maze.get(0).get(0).hasLeft, false);
-    t.checkExpect(mw.maze.get(0).get(0).hasRight, mw.maze.get(0).get(1).hasLeft);
-    t.checkExpect(mw.maze.get(0).get(0).hasDown, mw.maze.get(1).get(0).hasUp);
+    MazeGrid g = mw.grid;
+    t.checkExpect(g.canMove(0, MazeGrid.UP), false);
+    t.checkExpect(g.canMove(0, MazeGrid.LEFT), false);
+    t.checkExpect(g.canMove(0, MazeGrid.RIGHT), g.canMove(1, MazeGrid.LEFT));
+    t.checkExpect(g.canMove(0, MazeGrid.DOWN), g.canMove(10, MazeGrid.UP));
+    t.checkExpect(g.canMove(g.index(8, 3), MazeGrid.RIGHT), false);
+    t.checkExpect(g.canMove(g.index(3, 8), MazeGrid.DOWN), false);
   }
 
   void testGenerateAdjacent(Tester t) {
+    initData();
+    this.kruskal(mw).bucketedEdges = false;
+    mw.initMaze();
+    t.checkExpect(this.kruskal(mw).initialEdges.size(), 2 * width * height - width - height);
+    ArrayList<Edge> edges = this.kruskal(mw).initialEdges;
+    for (int i = 1; i < edges.size(); i++) {
+      t.checkExpect(edges.get(i - 1).weight <= edges.get(i).weight, true);
+    }
+    for (Edge edge : this.kruskal(mw).initialEdges) {
+      t.checkExpect(edge.to == edge.from + 1 || edge.to == edge.from + width, true);
+    }
+  }
+
+  void testOrderEdges(Tester t) {
+    initData();
+    mw.initMaze();
+    t.checkExpect(this.kruskal(mw).initialEdges.size(), 0);
+    t.checkExpect((long) this.kruskal(mw).edgeOrder.length, this.kruskal(mw).edgeCount());
+    CellSet rights = new CellSet(width * height);
+    CellSet downs = new CellSet(width * height);
+    IntStore order = this.kruskal(mw).edgeOrder;
+    for (int i = 0; i < order.length; i++) {
+      int code = order.get(i);
+      int from = code >>> 1;
+      if ((code & 1) == 0) {
+        t.checkExpect(mw.grid.xOf(from) < width - 1, true);
+        t.checkExpect(rights.add(from), true);
+      } else {
+        t.checkExpect(mw.grid.yOf(from) < height - 1, true);
+        t.checkExpect(downs.add(from), true);
+      }
+    }
+  }
+
+  void testBucketedMazeIsSolvable(Tester t) {
+    initData();
+    mw.initMaze();
+    t.checkExpect(this.kruskal(mw).sets.components, 1);
+    mw.onKeyEvent("n");
+    for (int i = 0; i < 1000 && !mw.found; i++) {
+      mw.onTick();
+    }
+    t.checkExpect(mw.found, true);
+  }
+
+  void testFrontierSolvers(Tester t) {
+    initData();
+    mw.initMaze();
+    FrontierSolver bfs = new BreadthFirstSolver(mw.grid, 0, mw.end);
+    FrontierSolver dfs = new DepthFirstSolver(mw.grid, 0, mw.end);
+    t.checkExpect(bfs.step(), 0);
+    t.checkExpect(bfs.solve(), true);
+    t.checkExpect(dfs.solve(), true);
+    t.checkExpect(bfs.step(), -1);
+    // Both searches walk the same unique path back to the start
+    t.checkExpect(dfs.path(), bfs.path());
+    t.checkExpect(bfs.path()[0], 0);
+    t.checkExpect(bfs.path()[bfs.path().length - 1], mw.end);
+    t.checkExpect(bfs.path().length >= 17, true);
+    t.checkExpect(bfs.nodesExpanded() <= 81, true);
+  }
+
+  void testFrontierSolverLargeMaze(Tester t) {
+    MazeWorld big = new MazeWorld(1000, 1000);
+    big.initMaze();
+    MazeSolver bfs = new BreadthFirstSolver(big.grid, 0, big.end);
+    t.checkExpect(bfs.solve(), true);
+    MazeSolver unreachable = new DepthFirstSolver(big.grid, 0, big.grid.size() - 1);
+    t.checkExpect(unreachable.solve(), false);
+    t.checkExpect(unreachable.nodesExpanded(), 999L * 999);
+    t.checkExpect(unreachable.path().length, 0);
+  }
+
+  void testSolversAgree(Tester t) {
+    MazeWorld w = new MazeWorld(60, 40);
+    w.initMaze();
+    MazeSolver bfs = new BreadthFirstSolver(w.grid, 0, w.end);
+    bfs.solve();
+    int[] expected = bfs.path();
+    for (String key : MazeWorld.SOLVER_KEYS) {
+      MazeSolver s = w.makeSolver(key);
+      t.checkExpect(s.solve(), true);
+      t.checkExpect(s.path(), expected);
+      t.checkExpect(s.nodesExpanded() > 0, true);
+    }
+    t.checkExpect(w.compareSolvers().size(), MazeWorld.SOLVER_KEYS.length);
+    // Compared from the keyboard, the reports are shown in the scene
+    w.onKeyEvent("c");
+    t.checkExpect(w.report.size(), MazeWorld.SOLVER_KEYS.length);
+    w.makeScene();
+    w.onKeyEvent("enter");
+    t.checkExpect(w.report, null);
+  }
+
+  void testSolverStepsToSameCell(Tester t) {
+    MazeWorld w = new MazeWorld(20, 20);
+    w.initMaze();
+    MazeSolver s = new BidirectionalSolver(w.grid, w.end, w.end);
+    t.checkExpect(s.found(), true);
+    t.checkExpect(s.path(), new int[] { w.end });
+    MazeSolver a = new AStarSolver(w.grid, 0, 0);
+    t.checkExpect(a.step(), 0);
+    t.checkExpect(a.found(), true);
+  }
+
+  void testLongHeap(Tester t) {
+    LongHeap h = new LongHeap(1);
+    long[] values = { 5, 3, 9, 1, 7, 3, 0 };
+    for (long v : values) {
+      h.add(v);
+    }
+    t.checkExpect(h.removeMin(), 0L);
+    t.checkExpect(h.removeMin(), 1L);
+    t.checkExpect(h.removeMin(), 3L);
+    t.checkExpect(h.removeMin(), 3L);
+    t.checkExpect(h.removeMin(), 5L);
+    t.checkExpect(h.removeMin(), 7L);
+    t.checkExpect(h.removeMin(), 9L);
+    t.checkExpect(h.isEmpty(), true);
+  }
+
+  void testIntDeque(Tester t) {
+    IntDeque d = new IntDeque(1);
+    for (int i = 0; i < 20; i++) {
+      d.addLast(i);
+    }
+    d.addFirst(-1);
+    t.checkExpect(d.size, 21);
+    t.checkExpect(d.removeFirst(), -1);
+    t.checkExpect(d.removeLast(), 19);
+    t.checkExpect(d.removeFirst(), 0);
+    t.checkExpect(d.get(0), 1);
+    d.clear();
+    t.checkExpect(d.isEmpty(), true);
+  }
+
+  void testStepPolicy(Tester t) {
+    StepPolicy fixed = StepPolicy.steps(3);
+    t.checkExpect(fixed.budget(), 0L);
+    t.checkExpect(fixed.allows(2, 0), true);
+    t.checkExpect(fixed.allows(3, 0), false);
+    StepPolicy timed = StepPolicy.millis(5);
+    t.checkExpect(timed.budget(), 5000000L);
+    t.checkExpect(timed.allows(0, 0), true);
+    t.checkExpect(timed.allows(1, 0), true);
+    t.checkExpect(timed.allows(StepPolicy.CHECK_EVERY, 0), false);
+    StepPolicy adaptive = StepPolicy.adaptive(0.1);
+    t.checkExpect(adaptive.budget(), 75000000L);
+    adaptive.sceneBuilt(20000000);
+    t.checkExpect(adaptive.budget(), 55000000L);
+    adaptive.sceneBuilt(100000000);
+    t.checkExpect(adaptive.budget(), 45000000L);
+    adaptive.sceneBuilt(1000000000);
+    t.checkExpect(adaptive.budget(), StepPolicy.MIN_BUDGET_NANOS);
+  }
+
+  void testOnTickSteps(Tester t) {
     initData();
     mw.initMaze();
-    mw.generateAdjacent();
-    t.checkExpect(mw.maze.get(0).get(0).right, mw.maze.get(0).get(1));
-    t.checkExpect(mw.maze.get(0).get(0).up, null);
-    t.checkExpect(mw.maze.get(0).get(0).down, mw.maze.get(1).get(0));
-    t.checkExpect(mw.maze.get(height - 1).get(width - 1).down, null);
+    mw.stepPolicy = StepPolicy.steps(5);
+    mw.onKeyEvent("n");
+    mw.onTick();
+    t.checkExpect(mw.solver.nodesExpanded(), 5L);
+    mw.onTick();
+    t.checkExpect(mw.solver.nodesExpanded(), 10L);
+    mw.onKeyEvent("j");
+    t.checkExpect(mw.found, true);
+    t.checkExpect(mw.seen.contains(mw.end), true);
+    mw.onKeyEvent("t");
+    t.checkExpect(mw.stepPolicy.adaptive, true);
+    mw.onKeyEvent("t");
+    t.checkExpect(mw.stepPolicy.stepsPerTick, 1);
+  }
+
+  void testOnTickAdaptive(Tester t) {
+    MazeWorld w = new MazeWorld(300, 300);
+    w.initMaze();
+    w.stepPolicy = StepPolicy.adaptive(60);
+    w.onKeyEvent("f");
+    w.onTick();
+    t.checkExpect(w.found, true);
   }
 
   void testOnKeyEvent(Tester t) {
     initData();
     mw.initMaze();
-    mw.maze.get(0).get(0).hasRight = true;
+    mw.grid.setRight(0, true);
     mw.onKeyEvent("d");
     t.checkExpect(mw.player.x, 1);
-    mw.maze.get(0).get(1).hasRight = true;
+    mw.grid.setRight(1, true);
     mw.onKeyEvent("d");
     t.checkExpect(mw.player.x, 2);
-    mw.maze.get(0).get(2).hasRight = true;
+    mw.grid.setRight(2, true);
     mw.onKeyEvent("d");
     t.checkExpect(mw.player.x, 3);
+    t.checkExpect(mw.seen.contains(2), true);
+    t.checkExpect(mw.seen.contains(3), false);
+  }
+
+  void testDistanceField(Tester t) {
+    initData();
+    mw.initMaze();
+    DistanceField d = mw.distances;
+    t.checkExpect(d.distanceFrom(mw.end), 0);
+    t.checkExpect(d.nextMove(mw.end), -1);
+    t.checkExpect(d.distanceFrom(mw.grid.index(9, 9)), -1);
+    MazeSolver s = new BreadthFirstSolver(mw.grid, 0, mw.end);
+    s.solve();
+    t.checkExpect(d.pathFrom(0), s.path());
+    t.checkExpect(d.distanceFrom(0), s.path().length - 1);
+    // Following the next moves leads to the end in exactly that many steps
+    int cell = 0;
+    int steps = 0;
+    while (d.nextMove(cell) >= 0) {
+      t.checkExpect(mw.grid.canMove(cell, d.nextMove(cell)), true);
+      cell = mw.grid.neighbor(cell, d.nextMove(cell));
+      steps++;
+    }
+    t.checkExpect(cell, mw.end);
+    t.checkExpect(steps, d.distanceFrom(0));
+  }
+
+  void testHints(Tester t) {
+    initData();
+    mw.initMaze();
+    int first = mw.distances.nextMove(0);
+    mw.onKeyEvent("h");
+    t.checkExpect(mw.showHints, true);
+    t.checkExpect(mw.hint().startsWith(mw.distances.distanceFrom(0) + " steps"), true);
+    mw.onKeyEvent(new String[] { "d", "s", "a", "w" }[first]);
+    t.checkExpect(mw.grid.index(mw.player.x, mw.player.y), mw.grid.neighbor(0, first));
+    mw.onKeyEvent("g");
+    t.checkExpect(mw.onPath.contains(mw.end), true);
+    t.checkExpect(mw.onPath.contains(0), false);
+    mw.player = new Player(8, 8, Color.GREEN);
+    t.checkExpect(mw.hint(), "At the end");
+    // A loaded maze finds its distances when they are first asked for
+    mw.startMaze(mw.grid);
+    t.checkExpect(mw.distances, null);
+    t.checkExpect(mw.distances().distanceFrom(mw.end), 0);
+  }
+
+  void testCellTree(Tester t) {
+    MazeWorld w = new MazeWorld(30, 20);
+    w.rand = new Random(7);
+    w.initMaze();
+    CellTree tree = w.tree;
+    t.checkExpect(tree.commonAncestor(0, w.end), w.end);
+    t.checkExpect(tree.distance(0, w.end), w.distances.distanceFrom(0));
+    t.checkExpect(tree.distance(5, 5), 0);
+    t.checkExpect(tree.path(5, 5), new int[] { 5 });
+    t.checkExpect(tree.distance(0, w.grid.index(29, 0)), -1);
+    // Every way between two cells agrees with a search between them
+    Random r = new Random(3);
+    for (int i = 0; i < 50; i++) {
+      int a = w.grid.index(r.nextInt(29), r.nextInt(19));
+      int b = w.grid.index(r.nextInt(29), r.nextInt(19));
+      MazeSolver s = new BreadthFirstSolver(w.grid, a, b);
+      s.solve();
+      t.checkExpect(tree.path(a, b), s.path());
+      t.checkExpect(tree.distance(a, b), s.path().length - 1);
+      t.checkExpect(tree.ancestor(a, 0), w.end);
+    }
+  }
+
+  void testJunctionGraph(Tester t) {
+    MazeWorld w = new MazeWorld(40, 30);
+    w.rand = new Random(11);
+    w.initMaze();
+    JunctionGraph g = w.junctions();
+    // Every cell is a node or in a corridor, and the corridors add up to the
+    // steps between the cells
+    int corridorCells = 0;
+    for (int cell = 0; cell < w.grid.size(); cell++) {
+      if (g.nodeOf.get(cell) < 0 && g.openSides(cell) == 2) {
+        corridorCells++;
+      }
+    }
+    long lengths = 0;
+    for (int e = 0; e < g.edgeCount(); e++) {
+      lengths += g.length.get(e);
+    }
+    t.checkExpect(lengths, 2L * (corridorCells + g.edgeCount() / 2));
+    t.checkExpect(g.nodeCount() < 39 * 29, true);
+    t.checkExpect(g.cellOf.get(g.nodeOf.get(w.end)), w.end);
+    // The junction solvers find the same path as the cell solvers, with
+    // fewer steps
+    MazeSolver cells = new BreadthFirstSolver(w.grid, 0, w.end);
+    cells.solve();
+    MazeSolver nodes = new JunctionSolver(g, false);
+    nodes.solve();
+    t.checkExpect(nodes.path(), cells.path());
+    t.checkExpect(nodes.nodesExpanded() < cells.nodesExpanded(), true);
+    // Animated, each step shows the corridors it discovered
+    w.onKeyEvent("k");
+    w.onKeyEvent("j");
+    t.checkExpect(w.found, true);
+    t.checkExpect(w.seen.contains(cells.path()[1]), true);
   }
 
-  void testCheckPaths(Tester t) {
+  void testDash(Tester t) {
     initData();
     mw.initMaze();
+    mw.grid.closeAll();
+    // A corridor from the start across to (3, 0) and down to (3, 2)
+    mw.grid.setRight(0, true);
+    mw.grid.setRight(1, true);
+    mw.grid.setRight(2, true);
+    mw.grid.setDown(3, true);
+    mw.grid.setDown(mw.grid.index(3, 1), true);
+    mw.onKeyEvent("S");
+    t.checkExpect(mw.player.x, 0);
+    mw.onKeyEvent("D");
+    t.checkExpect(mw.player.x, 3);
+    t.checkExpect(mw.player.y, 2);
+    t.checkExpect(mw.seen.contains(mw.grid.index(3, 1)), true);
+    t.checkExpect(mw.seen.contains(mw.grid.index(3, 2)), false);
+    mw.onKeyEvent("W");
+    t.checkExpect(mw.player.x, 0);
+    t.checkExpect(mw.player.y, 0);
+  }
+
+  void testSwarm(Tester t) {
+    MazeWorld w = new MazeWorld(20, 15);
+    w.rand = new Random(5);
+    w.initMaze();
+    Swarm swarm = new Swarm(w.grid, 0, w.end, 5000, 9, ForkJoinPool.commonPool());
+    t.checkExpect(swarm.batchArrivals.length, 2);
+    swarm.tick(400);
+    t.checkExpect(swarm.agentSteps, 5000L * 400);
+    t.checkExpect(swarm.arrivals > 0, true);
+    // Agents only ever stand in open cells, having come through open sides
+    boolean moved = true;
+    for (int a = 0; a < swarm.size(); a++) {
+      int back = (swarm.heading[a] + 2) & 3;
+      moved &= swarm.cell[a] == 0 || w.grid.canMove(swarm.cell[a], back);
+    }
+    t.checkExpect(moved, true);
+    // The same seed moves the same way on any number of threads
+    Swarm alone = new Swarm(w.grid, 0, w.end, 5000, 9, new ForkJoinPool(1));
+    alone.tick(400);
+    t.checkExpect(alone.cell, swarm.cell);
+    t.checkExpect(alone.arrivals, swarm.arrivals);
+    // Started from the world, the swarm marks where the agents have been
+    w.onKeyEvent("x");
+    w.onTick();
+    t.checkExpect(w.swarm.agentSteps, (long) MazeWorld.SWARM_AGENTS);
+    t.checkExpect(w.seen.contains(0), false);
+    t.checkExpect(w.seen.contains(w.swarm.cell[0]), true);
+    w.onKeyEvent("x");
+    t.checkExpect(w.swarm, null);
+  }
+
+  void testRegenerateInPlace(Tester t) {
+    MazeWorld w = new MazeWorld(100, 80);
+    w.initMaze();
+    MazeGrid grid = w.grid;
+    DistanceField distances = w.distances;
+    w.onKeyEvent("d");
+    w.onKeyEvent("n");
+    w.makeScene();
+    w.onKeyEvent("enter");
+    t.checkExpect(w.grid == grid, true);
+    t.checkExpect(w.distances == distances, true);
+    t.checkExpect(w.player.x, 0);
+    t.checkExpect(w.solver, null);
+    t.checkExpect(w.seen.contains(0), false);
+    t.checkExpect(w.repaint, true);
+    w.makeScene();
+    t.checkExpect(w.repaint, false);
+    // The maze made in place is the one a new grid gets from the same seed
+    t.checkExpect(w.grid.walls, new KruskalGenerator(100, 80).generate(w.seed).walls);
+    t.checkExpect(w.distances.distanceFrom(w.end), 0);
+    t.checkExpect(w.tree.distance(0, w.end), w.distances.distanceFrom(0));
+  }
+
+  void testRegenerateAllocatesNothing(Tester t) {
+    MazeWorld w = new MazeWorld(100, 80);
+    w.initMaze();
+    w.onKeyEvent("enter");
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long id = Thread.currentThread().getId();
+    threads.getThreadAllocatedBytes(id);
+    long before = threads.getThreadAllocatedBytes(id);
+    for (int i = 0; i < 20; i++) {
+      w.onKeyEvent("enter");
+    }
+    long allocated = threads.getThreadAllocatedBytes(id) - before;
+    t.checkExpect(allocated, 0L);
+
+    // The parallel generator keeps its arrays between mazes too. Its work is
+    // done on the pool's threads, which are counted as well, and all it makes
+    // again is the few tasks each round is split into, so far less than a
+    // byte per vertex where it used to be about 25.
+    MazeWorld big = new MazeWorld(400, 300);
+    big.generator = new ParallelKruskalGenerator(400, 300, 64, new ForkJoinPool(2));
+    big.initMaze();
+    big.onKeyEvent("enter");
+    long[] ids = threads.getAllThreadIds();
+    long everyBefore = 0;
+    for (long bytes : threads.getThreadAllocatedBytes(ids)) {
+      everyBefore += Math.max(bytes, 0);
+    }
+    for (int i = 0; i < 20; i++) {
+      big.onKeyEvent("enter");
+    }
+    long everyAfter = 0;
+    for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      everyAfter += Math.max(bytes, 0);
+    }
+    t.checkExpect((everyAfter - everyBefore) / 20 < 400 * 300, true);
+  }
+
+  void testOffHeapStorage(Tester t) throws IOException {
+    MazeWorld heap = new MazeWorld(60, 40);
+    heap.rand = new Random(4);
+    heap.initMaze();
+    heap.onKeyEvent("n");
+    heap.onKeyEvent("j");
+    File directory = new File(System.getProperty("java.io.tmpdir"));
+    MazeStorage[] storages = { MazeStorage.direct(), MazeStorage.mapped(directory) };
+    for (MazeStorage storage : storages) {
+      MazeWorld w = new MazeWorld(60, 40);
+      w.useStorage(storage);
+      w.rand = new Random(4);
+      w.initMaze();
+      t.checkExpect(w.grid instanceof MappedMazeGrid, true);
+      t.checkExpect(w.seen instanceof BufferCellSet, true);
+      t.checkExpect(w.distances.distance.array, null);
+      // The same seed makes the same maze, solved and measured the same way
+      boolean same = true;
+      for (int i = 0; i < heap.grid.wordCount(); i++) {
+        same &= w.grid.word(i) == heap.grid.word(i);
+      }
+      t.checkExpect(same, true);
+      w.onKeyEvent("n");
+      w.onKeyEvent("j");
+      t.checkExpect(w.found, true);
+      t.checkExpect(w.correctPath, heap.correctPath);
+      t.checkExpect(w.seen.anyIn(0, w.grid.size()), true);
+      t.checkExpect(w.distances.distanceFrom(0), heap.distances.distanceFrom(0));
+      t.checkExpect(w.tree.path(5, 300), heap.tree.path(5, 300));
+      // The generator, every solver and the junction graph keep what they
+      // need per cell in the storage too, and solve the same way
+      KruskalGenerator kruskal = (KruskalGenerator) w.generator;
+      t.checkExpect(kruskal.sets instanceof StoreUnionFind, true);
+      t.checkExpect(kruskal.edgeOrder.array, null);
+      AStarSolver aStar = (AStarSolver) w.makeSolver("v");
+      t.checkExpect(aStar.closed instanceof BufferCellSet, true);
+      t.checkExpect(aStar.distance.array, null);
+      t.checkExpect(((BidirectionalSolver) w.makeSolver("b")).previous.array, null);
+      t.checkExpect(((DeadEndFiller) w.makeSolver("f")).filled instanceof BufferCellSet, true);
+      t.checkExpect(w.junctions().nodeOf.array, null);
+      t.checkExpect(((JunctionSolver) w.makeSolver("k")).through.array, null);
+      for (String key : MazeWorld.SOLVER_KEYS) {
+        MazeSolver offHeap = w.makeSolver(key);
+        MazeSolver onHeap = heap.makeSolver(key);
+        offHeap.solve();
+        onHeap.solve();
+        t.checkExpect(offHeap.path(), onHeap.path());
+      }
+      w.makeScene();
+      t.checkExpect(w.layer.queued instanceof BufferCellSet, true);
+      // New mazes of the same size are made in the same buffers
+      MazeGrid grid = w.grid;
+      w.onKeyEvent("enter");
+      t.checkExpect(w.grid, grid);
+      t.checkExpect(w.seen.anyIn(0, w.grid.size()), false);
+    }
+    // A streamed maze can be made straight into storage off the heap
+    GridSink sink = new GridSink(MazeStorage.mapped(directory));
+    new EllerGenerator(30, 20).generate(1, sink);
+    t.checkExpect(sink.grid instanceof MappedMazeGrid, true);
+    t.checkExpect(this.isPerfect(sink.grid), true);
+    IntStore ints = MazeStorage.direct().ints(100);
+    ints.fill(7);
+    ints.set(99, 3);
+    t.checkExpect(ints.get(0), 7);
+    t.checkExpect(ints.get(99), 3);
+    t.checkExpect(IntStore.chunksFor(IntStore.CHUNK + 1), 2);
+    // The edges of the biggest mazes are counted past the range of an int,
+    // and mazes too big to encode are refused rather than overflowing
+    KruskalGenerator biggest = new KruskalGenerator(1 << 15, 1 << 15, MazeStorage.direct());
+    t.checkExpect(biggest.edgeCount(), (1L << 31) - (1L << 16));
+    boolean refused = false;
+    try {
+      new KruskalGenerator((1 << 15) + 1, 1 << 15, MazeStorage.direct());
+    } catch (IllegalArgumentException e) {
+      refused = true;
+    }
+    t.checkExpect(refused, true);
+  }
+
+  void testChunkedMaze(Tester t) throws IOException {
+    ChunkedMaze maze = new ChunkedMaze(9, 16, 4, null);
+    MazeGrid window = maze.window(-1, -1, 3, new MazeGrid(49, 49));
+    // Every chunk is a perfect maze, and the doors join them all together
+    t.checkExpect(this.isPerfect(maze.chunk(0, 0)), true);
+    t.checkExpect(new DistanceField(window, 0).reached, 48 * 48);
+    t.checkExpect(window.canMove(window.index(47, 10), MazeGrid.RIGHT), false);
+    int door = maze.door(0, 0, ChunkedMaze.RIGHT_DOOR);
+    t.checkExpect(maze.canMove(0, 0, 15, door, MazeGrid.RIGHT), true);
+    t.checkExpect(maze.canMove(1, 0, 0, door, MazeGrid.LEFT), true);
+    t.checkExpect(maze.canMove(1, 0, 0, (door + 1) % 16, MazeGrid.LEFT), false);
+    // The cache never holds more than its capacity, and a chunk made again
+    // after it was let go is the same as before
+    long first = maze.chunk(5, -3).word(3);
+    for (int i = 0; i < 20; i++) {
+      maze.chunk(100 + i, i);
+    }
+    t.checkExpect(maze.cache.size(), 4);
+    t.checkExpect(maze.evicted, maze.generated - 4);
+    t.checkExpect(maze.chunk(5, -3).word(3), first);
+    t.checkExpect(new ChunkedMaze(9, 16, 4, null).chunk(5, -3).word(3), first);
+    // Chunks let go are spilled to disk and read back from there
+    File spill = Files.createTempDirectory("chunks").toFile();
+    ChunkedMaze spilled = new ChunkedMaze(9, 16, 1, spill);
+    spilled.chunk(5, -3);
+    spilled.chunk(6, -3);
+    t.checkExpect(spilled.spillFile(5, -3).exists(), true);
+    t.checkExpect(spilled.chunk(5, -3).word(3), first);
+    t.checkExpect(spilled.loaded, 1L);
+    for (File file : spill.listFiles()) {
+      file.delete();
+    }
+    spill.delete();
+  }
+
+  void testEndless(Tester t) {
+    MazeWorld w = new MazeWorld(20, 10);
+    w.rand = new Random(6);
+    w.initMaze();
+    w.onKeyEvent("e");
+    t.checkExpect(w.mazeWidth, MazeWorld.CHUNK_SIZE * MazeWorld.WINDOW_CHUNKS + 1);
+    t.checkExpect(w.player.x, MazeWorld.CHUNK_SIZE);
+    MazeGrid grid = w.grid;
+    // Walking far to the right moves the grid along instead of growing it
+    for (int i = 0; i < 2000; i++) {
+      int current = w.grid.index(w.player.x, w.player.y);
+      int next = w.distances().nextMove(current);
+      w.onKeyEvent(new String[] { "d", "s", "a", "w" }[next]);
+      if (w.distances().distanceFrom(w.grid.index(w.player.x, w.player.y)) == 0) {
+        break;
+      }
+    }
+    t.checkExpect(w.windowX > -1, true);
+    t.checkExpect(w.grid, grid);
+    t.checkExpect(w.player.x / MazeWorld.CHUNK_SIZE, 1);
+    t.checkExpect(w.endless.cache.size() <= MazeWorld.CHUNK_CACHE, true);
+    t.checkExpect(w.worldEnds().worldEnds, false);
+    w.onKeyEvent("e");
+    t.checkExpect(w.endless, null);
+    t.checkExpect(w.mazeWidth, 20);
+    t.checkExpect(w.grid.width, 20);
+  }
+
+  void testMetrics(Tester t) throws JMException {
+    Histogram h = new Histogram();
+    h.record(0);
+    h.record(1);
+    h.record(3);
+    h.record(1000);
+    t.checkExpect(h.mean(), 251.0);
+    t.checkExpect(h.percentile(0.5), 1L);
+    t.checkExpect(h.percentile(0.75), 3L);
+    t.checkExpect(h.percentile(1), 1000L);
+
+    // Nothing is recorded until the metrics are enabled
+    MazeWorld w = new MazeWorld(30, 20);
+    w.initMaze();
+    w.onKeyEvent("n");
+    w.onTick();
+    w.makeScene();
+    t.checkExpect(w.metrics.getMazesMade(), 0L);
+    t.checkExpect(w.metrics.getTicks(), 0L);
+    t.checkExpect(w.metrics.getFrames(), 0L);
+    w.onKeyEvent("i");
+    t.checkExpect(w.metrics.enabled, true);
+    w.onKeyEvent("enter");
+    t.checkExpect(w.metrics.getMazesMade(), 1L);
+    t.checkExpect(w.metrics.getMazeCells(), 600);
+    // A spanning tree over the 600 vertices, less the borders, takes at least
+    // one union per cell
+    t.checkExpect(w.metrics.getUnionFindOperations() >= 29 * 19 - 1, true);
+    w.onKeyEvent("n");
+    w.stepPolicy = StepPolicy.steps(10);
+    w.onTick();
+    t.checkExpect(w.metrics.getTicks(), 1L);
+    t.checkExpect(w.metrics.getNodesExpanded(), 10L);
+    t.checkExpect(w.metrics.getMaxFrontier() > 0, true);
+    w.makeScene();
+    // The scene, the layer repainted in place, and three lines of overlay
+    t.checkExpect(w.metrics.getFrames(), 1L);
+    t.checkExpect(w.metrics.getMeanImagesPerFrame(), 4.0);
+    t.checkExpect(w.metrics.lines().size(), 3);
+
+    // The same numbers are read through JMX
+    ObjectName name = w.metrics.register("MazeWorld:type=MazeMetrics,name=test");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    t.checkExpect(server.getAttribute(name, "MazesMade"), 1L);
+    t.checkExpect(server.getAttribute(name, "Enabled"), true);
+    server.invoke(name, "reset", null, null);
+    t.checkExpect(w.metrics.getMazesMade(), 0L);
+    server.unregisterMBean(name);
+  }
+
+  void testGenerators(Tester t) {
+    for (String name : MazeWorld.GENERATORS) {
+      MazeGenerator g = MazeWorld.generatorFor(name, 37, 23);
+      MazeGrid maze = g.generate(5);
+      t.checkExpect(g.name(), name);
+      t.checkExpect(this.isPerfect(maze), true);
+      // The same seed makes the same maze, in the grid it is given
+      MazeGrid again = new MazeGrid(37, 23);
+      again.openAll();
+      t.checkExpect(g.generateInto(5, again).walls, maze.walls);
+      t.checkExpect(this.isPerfect(g.generate(6)), true);
+    }
+    // The backtracker keeps its own stack, so a long walk cannot overflow
+    t.checkExpect(this.isPerfect(new BacktrackerGenerator(400, 400).generate(1)), true);
+    // Every cell of a Binary Tree maze but the first opens up or left
+    MazeGrid binary = new BinaryTreeGenerator(20, 20).generate(3);
+    boolean upOrLeft = true;
+    for (int y = 0; y < 19; y++) {
+      for (int x = 0; x < 19; x++) {
+        int cell = binary.index(x, y);
+        upOrLeft &= cell == 0 || binary.canMove(cell, MazeGrid.UP)
+            || binary.canMove(cell, MazeGrid.LEFT);
+      }
+    }
+    t.checkExpect(upOrLeft, true);
+
+    MazeWorld w = new MazeWorld(30, 20);
+    w.initMaze();
+    w.onKeyEvent("r");
+    t.checkExpect(w.algorithm, "eller");
+    t.checkExpect(w.generator.name(), "eller");
+    t.checkExpect(this.isPerfect(w.grid), true);
+    t.checkExpect(w.compareGenerators().size(), MazeWorld.GENERATORS.length);
+    w.onKeyEvent("R");
+    t.checkExpect(w.report.size(), MazeWorld.GENERATORS.length);
+    for (int i = 1; i < MazeWorld.GENERATORS.length; i++) {
+      w.onKeyEvent("r");
+    }
+    t.checkExpect(w.algorithm, "kruskal");
+  }
 
-    mw.maze.get(0).get(0).checkPaths();
-    t.checkExpect(mw.maze.get(0).get(0).hasUp, false);
-    t.checkExpect(mw.maze.get(0).get(0).hasLeft, false);
-    t.checkExpect(mw.maze.get(0).get(0).hasRight, mw.maze.get(0).get(1).hasLeft);
-    t.checkExpect(mw.maze.get(0).get(0).hasDown, mw.maze.get(1).get(0).hasUp);
+  void testSolverRace(Tester t) {
+    MazeWorld w = new MazeWorld(60, 40);
+    w.rand = new Random(8);
+    w.initMaze();
+    long[] walls = w.grid.walls.clone();
+    w.onKeyEvent("q");
+    SolverRace race = w.race;
+    t.checkExpect(race.solvers.length, MazeWorld.SOLVER_KEYS.length);
+    t.checkExpect(race.winner >= 0, true);
+    // Racing on other threads reads the maze without changing it, and every
+    // solver does exactly the work it does alone
+    t.checkExpect(w.grid.walls, walls);
+    boolean[] places = new boolean[race.solvers.length + 1];
+    for (int i = 0; i < race.solvers.length; i++) {
+      MazeSolver alone = w.makeSolver(MazeWorld.SOLVER_KEYS[i]);
+      alone.solve();
+      t.checkExpect(race.solvers[i].found(), true);
+      t.checkExpect(race.solvers[i].nodesExpanded(), alone.nodesExpanded());
+      t.checkExpect(race.solvers[i].path(), alone.path());
+      t.checkExpect(race.onPath[i].contains(w.end), true);
+      t.checkExpect(race.seen[i].anyIn(0, w.grid.size()), true);
+      places[race.place[i]] = true;
+    }
+    t.checkExpect(places, new boolean[] { false, true, true, true, true, true, true, true });
+    // The places and the winner agree with the times reported
+    for (int i = 0; i < race.solvers.length; i++) {
+      for (int j = 0; j < race.solvers.length; j++) {
+        if (race.place[i] < race.place[j]) {
+          t.checkExpect(race.nanos[i] <= race.nanos[j], true);
+        }
+      }
+    }
+    t.checkExpect(race.place[race.winner], 1);
+    t.checkExpect(race.report().size(), race.solvers.length + 1);
+    // Each solver gets a panel showing the whole maze
+    w.makeScene();
+    t.checkExpect(w.racePanels.length, race.solvers.length);
+    t.checkExpect(w.racePanels[0].cellsAcross(), 59);
+    t.checkExpect(w.racePanels[0].pixelsWide <= w.viewWidth / 4, true);
+    w.onKeyEvent("q");
+    t.checkExpect(w.race, null);
+    w.onKeyEvent("q");
+    w.onKeyEvent("enter");
+    t.checkExpect(w.race, null);
+  }
+
+  void testBitFrontierSearch(Tester t) {
+    t.checkExpect(BitFrontierSearch.evenBits(0xFFFFFFFFFFFFFFFFL), 0xFFFFFFFFL);
+    t.checkExpect(BitFrontierSearch.evenBits(0x5L), 0x3L);
+    t.checkExpect(BitFrontierSearch.evenBits(0x4000000000000002L), 0x80000000L);
+    // Rows a word long, a bit over and a bit under, every kind of maze, and
+    // a grid with no walls at all, whose frontier is a whole diagonal
+    int[] widths = { 64, 65, 129, 20 };
+    for (int i = 0; i < widths.length; i++) {
+      for (String name : MazeWorld.GENERATORS) {
+        MazeGrid g = MazeWorld.generatorFor(name, widths[i], 30).generate(i);
+        this.checkBitFrontier(t, g, g.index(widths[i] - 2, 28));
+        this.checkBitFrontier(t, g, g.index(widths[i] / 2, 10));
+      }
+    }
+    MazeGrid open = new MazeGrid(70, 70);
+    open.openAll();
+    this.checkBitFrontier(t, open, 0);
+  }
+
+  // EFFECT: Checks that searching a level at a time on bit rows finds the
+  // same distances as searching a cell at a time, and the cells nearest first
+  void checkBitFrontier(Tester t, MazeGrid g, int target) {
+    DistanceField queue = new DistanceField(g, target);
+    DistanceField bits = new DistanceField(g, target, MazeStorage.heap(), true);
+    t.checkExpect(bits.reached, queue.reached);
+    int wrong = 0;
+    for (int cell = 0; cell < g.size(); cell++) {
+      if (bits.distanceFrom(cell) != queue.distanceFrom(cell)) {
+        wrong++;
+      }
+    }
+    int backwards = 0;
+    for (int i = 1; i < bits.reached; i++) {
+      if (bits.distance.get(bits.order.get(i)) < bits.distance.get(bits.order.get(i - 1))) {
+        backwards++;
+      }
+    }
+    t.checkExpect(wrong, 0);
+    t.checkExpect(backwards, 0);
+    // Searching again reuses the bit rows and finds the same distances
+    bits.build();
+    t.checkExpect(bits.distanceFrom(0), queue.distanceFrom(0));
+  }
+
+  void testAddWall(Tester t) {
+    initData();
+    mw.initMaze();
+    mw.grid.openAll();
+    this.kruskal(mw).addWall(mw.grid.index(3, 2), mw.grid.index(3, 3));
+    t.checkExpect(mw.grid.openRight(mw.grid.index(2, 2)), false);
+    t.checkExpect(mw.grid.openRight(mw.grid.index(3, 2)), true);
+    this.kruskal(mw).addWall(mw.grid.index(3, 2), mw.grid.index(4, 2));
+    t.checkExpect(mw.grid.openDown(mw.grid.index(3, 1)), false);
+    t.checkExpect(mw.grid.openDown(mw.grid.index(3, 2)), true);
   }
 
   void testInitMap(Tester t) {
     initData();
     mw.initMaze();
-    mw.initMap();
-    t.checkExpect(mw.map.get(mw.maze.get(0).get(0)), mw.maze.get(0).get(0));
-    t.checkExpect(mw.map.get(mw.maze.get(1).get(0)), mw.maze.get(1).get(0));
-    t.checkExpect(mw.map.get(mw.maze.get(0).get(1)), mw.maze.get(0).get(1));
-    t.checkExpect(mw.map.get(mw.maze.get(1).get(1)), mw.maze.get(1).get(1));
+    this.kruskal(mw).initMap();
+    t.checkExpect(this.kruskal(mw).sets.find(0), 0);
+    t.checkExpect(this.kruskal(mw).sets.find(10), 10);
+    t.checkExpect(this.kruskal(mw).sets.find(1), 1);
+    t.checkExpect(this.kruskal(mw).sets.find(11), 11);
+    t.checkExpect(this.kruskal(mw).sets.components, 100);
   }
 
   void testMazeWorld(Tester t) {
@@ -657,24 +1835,121 @@ class ExamplesMazeWorld {
     mw.bigBang(1000, 700, 0.5);
   }
 
-  void testDrawHorizontalWall(Tester t) {
+  void testMazeLayerWalls(Tester t) {
     initData();
-    t.checkExpect(e.drawHorizontalWall(10),
-        new RectangleImage(10, 3, OutlineMode.SOLID, Color.BLACK));
-    t.checkExpect(e.drawHorizontalWall(11),
-        new RectangleImage(11, 3, OutlineMode.SOLID, Color.BLACK));
-    t.checkExpect(e.drawHorizontalWall(12),
-        new RectangleImage(12, 3, OutlineMode.SOLID, Color.BLACK));
+    mw.initMaze();
+    mw.makeScene();
+    ComputedPixelImage image = mw.layer.image;
+    // The outer walls are painted along the top and left edges
+    t.checkExpect(image.getPixel(0, 5), Color.BLACK);
+    t.checkExpect(image.getPixel(5, 0), Color.BLACK);
+    t.checkExpect(image.getPixel(5, 5), Color.LIGHT_GRAY);
+    // A closed side gets a wall three pixels thick
+    for (int i = 0; i < mw.grid.size(); i++) {
+      int x = mw.grid.xOf(i);
+      int y = mw.grid.yOf(i);
+      if (x < width - 2 && y < height - 1) {
+        Color expected = mw.grid.openRight(i) ? Color.LIGHT_GRAY : Color.BLACK;
+        t.checkExpect(image.getPixel(x * 10 + 9, y * 10 + 5), expected);
+        t.checkExpect(image.getPixel(x * 10 + 10, y * 10 + 5), expected);
+        t.checkExpect(image.getPixel(x * 10 + 11, y * 10 + 5), expected);
+      }
+    }
   }
 
-  void testDrawVerticalWall(Tester t) {
+  void testMazeLayerDirtyCells(Tester t) {
     initData();
-    t.checkExpect(e.drawVerticalWall(10),
-        new RectangleImage(3, 10, OutlineMode.SOLID, Color.BLACK));
-    t.checkExpect(e.drawVerticalWall(20),
-        new RectangleImage(3, 20, OutlineMode.SOLID, Color.BLACK));
-    t.checkExpect(e.drawVerticalWall(30),
-        new RectangleImage(3, 30, OutlineMode.SOLID, Color.BLACK));
+    mw.initMaze();
+    mw.makeScene();
+    t.checkExpect(mw.layer.dirty.isEmpty(), true);
+    mw.markSeen(mw.grid.index(3, 4));
+    mw.markSeen(mw.grid.index(3, 4));
+    mw.markOnPath(mw.grid.index(5, 5));
+    t.checkExpect(mw.layer.dirty.size, 2);
+    t.checkExpect(mw.layer.image.getPixel(35, 45), Color.LIGHT_GRAY);
+    MazeLayer before = mw.layer;
+    mw.makeScene();
+    t.checkExpect(mw.layer, before);
+    t.checkExpect(mw.layer.dirty.isEmpty(), true);
+    t.checkExpect(mw.layer.image.getPixel(35, 45), Color.CYAN);
+    t.checkExpect(mw.layer.image.getPixel(55, 55), Color.BLUE);
+    t.checkExpect(mw.layer.paintDirty(mw.grid, mw.seen, mw.onPath), 0);
+    // A new maze of the same size is painted over the same layer
+    mw.onKeyEvent("enter");
+    t.checkExpect(mw.layer, before);
+    t.checkExpect(mw.repaint, true);
+  }
+
+  void testCameraFollowsPlayer(Tester t) {
+    MazeWorld w = new MazeWorld(500, 400);
+    w.initMaze();
+    w.viewWidth = 200;
+    w.viewHeight = 100;
+    w.makeScene();
+    t.checkExpect(w.layer.pixelsWide, 200);
+    t.checkExpect(w.layer.pixelsHigh, 100);
+    t.checkExpect(w.layer.cellsAcross(), 20);
+    t.checkExpect(w.layer.originX, 0);
+    w.player.x = 250;
+    w.player.y = 390;
+    w.makeScene();
+    t.checkExpect(w.layer.originX, 240);
+    t.checkExpect(w.layer.originY, 385);
+    t.checkExpect(w.layer.inView(250, 390), true);
+    t.checkExpect(w.layer.inView(0, 0), false);
+    // Cells outside the view are skipped
+    w.markSeen(0);
+    w.markSeen(w.grid.index(251, 391));
+    t.checkExpect(w.layer.paintDirty(w.grid, w.seen, w.onPath), 1);
+    t.checkExpect(w.layer.follow(251, 391), false);
+  }
+
+  void testZoom(Tester t) {
+    MazeWorld w = new MazeWorld(2001, 1001);
+    w.rand = new Random(6);
+    w.initMaze();
+    w.zoom(-5);
+    t.checkExpect(w.vertexSize, 40);
+    w.zoom(4);
+    t.checkExpect(w.vertexSize, 3);
+    w.zoom(2);
+    t.checkExpect(w.vertexSize, 1);
+    t.checkExpect(w.blockSize, 2);
+    w.zoom(10);
+    // 2000 x 1000 cells fit in 1000 x 700 pixels at two cells per pixel
+    t.checkExpect(w.blockSize, 2);
+    w.makeScene();
+    t.checkExpect(w.layer.isDetailed(), false);
+    t.checkExpect(w.layer.pixelsWide, 1000);
+    t.checkExpect(w.layer.pixelsHigh, 500);
+    // The top left pixel stands for the 2 x 2 block of cells there, shaded by
+    // how many sides are closed along its diagonal
+    int closed = 0;
+    for (int d = 0; d < 2; d++) {
+      int cell = w.grid.index(d, d);
+      closed += (w.grid.canMove(cell, MazeGrid.RIGHT) ? 0 : 1)
+          + (w.grid.canMove(cell, MazeGrid.DOWN) ? 0 : 1);
+    }
+    Color shade = MazeLayer.SHADES[closed * (MazeLayer.SHADES.length - 1) / 4];
+    t.checkExpect(w.layer.image.getPixel(0, 0).getRGB(), shade.getRGB());
+    w.onKeyEvent("n");
+    w.onKeyEvent("j");
+    w.makeScene();
+    t.checkExpect(w.layer.image.getPixel(999, 499), MazeLayer.PATH);
+    t.checkExpect(w.layer.image.getPixel(0, 0), MazeLayer.PATH);
+  }
+
+  void testCellSetAnyIn(Tester t) {
+    CellSet cs = new CellSet(300);
+    cs.add(70);
+    cs.add(200);
+    t.checkExpect(cs.anyIn(0, 70), false);
+    t.checkExpect(cs.anyIn(0, 71), true);
+    t.checkExpect(cs.anyIn(71, 200), false);
+    t.checkExpect(cs.anyIn(64, 128), true);
+    t.checkExpect(cs.anyIn(5, 300), true);
+    t.checkExpect(cs.anyIn(201, 300), false);
+    t.checkExpect(cs.anyIn(200, 200), false);
   }
 
   void testCompareTo(Tester t) {
@@ -693,33 +1968,280 @@ class ExamplesMazeWorld {
     t.checkExpect(p.drawPlayer(30), new RectangleImage(30, 30, OutlineMode.SOLID, p.col));
   }
 
-  void addBorders(Tester t) {
+  void testAddBorders(Tester t) {
     initData();
-    mw.initMaze();
-    mw.initialEdges.set(0, e);
-    mw.addBorders();
-    t.checkExpect(mw.tree.get(mw.tree.size() - 1), e);
+    KruskalGenerator g = this.kruskal(mw);
+    g.grid = new MazeGrid(width, height);
+    g.initMap();
+    g.grid.openAll();
+    g.addBorders();
+    t.checkExpect(g.grid.openRight(g.grid.index(width - 2, 4)), false);
+    t.checkExpect(g.grid.openDown(g.grid.index(4, height - 2)), false);
+    t.checkExpect(g.grid.openRight(g.grid.index(4, 4)), true);
+    t.checkExpect(g.sets.find(width - 1) == g.sets.find(g.grid.index(0, height - 1)), true);
   }
   
   void testGenerateSolution(Tester t) {
     initData();
     mw.initMaze();
-    t.checkExpect(mw.maze.get(0).get(0).previous, null);
-    t.checkExpect(mw.maze.get(0).get(0).onCorrectPath, false);
-    t.checkExpect(mw.maze.get(mw.mazeHeight - 1).get(mw.mazeWidth - 1).previous, null);
+    t.checkExpect(mw.solver, null);
+    t.checkExpect(mw.onPath.contains(0), false);
+    mw.onKeyEvent("n");
+    for (int i = 0; i < 1000 && !mw.found; i++) {
+      mw.onTick();
+    }
+    t.checkExpect(mw.found, true);
+    t.checkExpect(mw.onPath.contains(mw.end), true);
+    t.checkExpect(mw.correctPath.get(0), mw.end);
   }
 
   void testUnion(Tester t) {
     initData();
     mw.initMaze();
-    mw.initMap();
-    mw.union(mw.maze.get(0).get(0), mw.maze.get(0).get(1), mw.map);
-    t.checkExpect(mw.map.get(mw.maze.get(0).get(0)), mw.maze.get(0).get(1));
-    mw.union(mw.maze.get(0).get(0), mw.maze.get(0).get(2), mw.map);
-    t.checkExpect(mw.map.get(mw.maze.get(0).get(2)), mw.maze.get(0).get(2));
-    mw.union(mw.maze.get(1).get(0), mw.maze.get(0).get(2), mw.map);
-    t.checkExpect(mw.map.get(mw.maze.get(1).get(0)), mw.maze.get(0).get(2));
-    mw.union(mw.maze.get(2).get(0), mw.maze.get(0).get(2), mw.map);
-    t.checkExpect(mw.map.get(mw.maze.get(2).get(0)), mw.maze.get(0).get(2));
-  }
-}
\ No newline at end of file
+    this.kruskal(mw).initMap();
+    t.checkExpect(this.kruskal(mw).sets.union(0, 1), true);
+    t.checkExpect(this.kruskal(mw).sets.parent[0], 1);
+    t.checkExpect(this.kruskal(mw).sets.union(0, 2), true);
+    t.checkExpect(this.kruskal(mw).sets.parent[2], 1);
+    t.checkExpect(this.kruskal(mw).sets.union(10, 2), true);
+    t.checkExpect(this.kruskal(mw).sets.parent[10], 1);
+    t.checkExpect(this.kruskal(mw).sets.union(20, 2), true);
+    t.checkExpect(this.kruskal(mw).sets.parent[20], 1);
+    t.checkExpect(this.kruskal(mw).sets.union(20, 0), false);
+    t.checkExpect(this.kruskal(mw).sets.components, 96);
+  }
+
+  void testFindCompressesPath(Tester t) {
+    UnionFind uf = new UnionFind(5);
+    uf.parent[0] = 1;
+    uf.parent[1] = 2;
+    uf.parent[2] = 3;
+    t.checkExpect(uf.find(0), 3);
+    t.checkExpect(uf.parent[0], 3);
+    t.checkExpect(uf.parent[1], 3);
+    t.checkExpect(uf.find(4), 4);
+  }
+
+  void testBuildWallsLargeMaze(Tester t) {
+    MazeWorld big = new MazeWorld(300, 300);
+    big.initMaze();
+    t.checkExpect(this.kruskal(big).sets.components, 1);
+  }
+
+  void testGeneratorIsSeeded(Tester t) {
+    KruskalGenerator g1 = new KruskalGenerator(30, 20);
+    KruskalGenerator g2 = new KruskalGenerator(30, 20);
+    long[] first = g1.generate(MazeBatch.mazeSeed(7, 3)).walls;
+    g2.generate(MazeBatch.mazeSeed(7, 2));
+    t.checkExpect(g2.generate(MazeBatch.mazeSeed(7, 3)).walls, first);
+    t.checkExpect(g2.sets.components, 1);
+  }
+
+  void testMazeBatch(Tester t) throws InterruptedException {
+    MazeBatch batch = new MazeBatch(20, 20, 5, 42, 2, null);
+    batch.run();
+    for (long nanos : batch.generateNanos) {
+      t.checkExpect(nanos > 0, true);
+    }
+  }
+
+  void testMazePng(Tester t) throws IOException {
+    byte[] bytes = new byte[100000];
+    new Random(3).nextBytes(bytes);
+    Adler32 whole = new Adler32();
+    whole.update(bytes);
+    Adler32 front = new Adler32();
+    front.update(bytes, 0, 30000);
+    Adler32 back = new Adler32();
+    back.update(bytes, 30000, 70000);
+    t.checkExpect(MazePng.adler32Combine(front.getValue(), back.getValue(), 70000),
+        whole.getValue());
+
+    MazeWorld w = new MazeWorld(21, 16);
+    w.rand = new Random(4);
+    w.initMaze();
+    w.onKeyEvent("d");
+    w.onKeyEvent("s");
+    w.onKeyEvent("g");
+    File file = File.createTempFile("maze", ".png");
+    file.deleteOnExit();
+    w.exportPicture(file);
+    BufferedImage image = ImageIO.read(file);
+    // 20 x 15 cells of 8 pixels, with a line of one pixel around each
+    t.checkExpect(image.getWidth(), 20 * 9 + 1);
+    t.checkExpect(image.getHeight(), 15 * 9 + 1);
+    t.checkExpect(image.getRGB(0, 0), MazeLayer.WALL.getRGB());
+    int player = w.grid.index(w.player.x, w.player.y);
+    t.checkExpect(image.getRGB(w.player.x * 9 + 4, w.player.y * 9 + 4), Color.GREEN.getRGB());
+    t.checkExpect(image.getRGB(19 * 9 + 4, 14 * 9 + 4), Color.RED.getRGB());
+    t.checkExpect(image.getRGB(4, 4), (w.onPath.contains(0) ? MazeLayer.PATH
+        : MazeLayer.SEEN).getRGB());
+    // The line between two cells is a wall exactly where the side is closed
+    int walls = 0;
+    for (int cell = 0; cell < w.grid.size(); cell++) {
+      int x = w.grid.xOf(cell);
+      int y = w.grid.yOf(cell);
+      if (x < 19 && y < 15 && cell != player
+          && (image.getRGB(x * 9 + 9, y * 9 + 4) == MazeLayer.WALL.getRGB())
+              == w.grid.openRight(cell)) {
+        walls++;
+      }
+    }
+    t.checkExpect(walls, 0);
+
+    // Drawn in bands of a single row, the picture is the same
+    MazePng banded = new MazePng(w.grid, w.seen, w.onPath, player, w.end, 8);
+    banded.bandRows = 1;
+    t.checkExpect(banded.bandCount(), 15);
+    File other = File.createTempFile("maze", ".png");
+    other.deleteOnExit();
+    banded.write(other);
+    BufferedImage again = ImageIO.read(other);
+    int differ = 0;
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        if (image.getRGB(x, y) != again.getRGB(x, y)) {
+          differ++;
+        }
+      }
+    }
+    t.checkExpect(differ, 0);
+    // The key handler's export says in the scene whether it worked
+    w.savePicture(other);
+    t.checkExpect(w.exportMessage.startsWith("Wrote " + other), true);
+    File nowhere = new File(new File(other.getPath() + ".missing"), "maze.png");
+    w.savePicture(nowhere);
+    t.checkExpect(w.exportMessage.startsWith("Could not write " + nowhere), true);
+    t.checkExpect(nowhere.exists(), false);
+    w.makeScene();
+    w.onKeyEvent("enter");
+    t.checkExpect(w.exportMessage, null);
+    boolean refused = false;
+    try {
+      new MazePng(w.grid, null, null, -1, -1, 0);
+    } catch (IllegalArgumentException e) {
+      refused = true;
+    }
+    t.checkExpect(refused, true);
+  }
+
+  void testMazeFile(Tester t) throws IOException {
+    initData();
+    mw.initMaze();
+    File file = File.createTempFile("maze", ".bin");
+    file.deleteOnExit();
+    mw.saveMaze(file);
+    t.checkExpect(file.length(), (long) MazeFile.HEADER_BYTES + 8 * mw.grid.wordCount());
+    MazeFile loaded = MazeFile.load(file);
+    t.checkExpect(loaded.seed, mw.seed);
+    t.checkExpect(loaded.generator, "kruskal");
+    for (int i = 0; i < mw.grid.wordCount(); i++) {
+      t.checkExpect(loaded.grid.word(i), mw.grid.word(i));
+    }
+
+    MazeWorld other = new MazeWorld(30, 40);
+    other.loadMaze(file);
+    t.checkExpect(other.mazeWidth, width);
+    t.checkExpect(other.end, mw.end);
+    t.checkExpect(other.grid.canMove(0, MazeGrid.RIGHT), mw.grid.canMove(0, MazeGrid.RIGHT));
+    other.onKeyEvent("n");
+    other.onKeyEvent("j");
+    t.checkExpect(other.found, true);
+    other.grid.setRight(0, !other.grid.openRight(0));
+    t.checkExpect(MazeFile.load(file).grid.word(0), mw.grid.word(0));
+  }
+
+  void testParallelGenerator(Tester t) {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    MazeGrid tiled = new ParallelKruskalGenerator(70, 45, 8, pool).generate(11);
+    MazeGrid whole = new ParallelKruskalGenerator(70, 45, 100, pool).generate(11);
+    t.checkExpect(tiled.walls, whole.walls);
+    t.checkExpect(this.isPerfect(tiled), true);
+    // Kept from maze to maze, its arrays and rounds make the same mazes as a
+    // new generator, even once the rounds have to start counting again
+    ParallelKruskalGenerator reused = new ParallelKruskalGenerator(70, 45, 8, pool);
+    reused.generate(3);
+    t.checkExpect(reused.generate(11).walls, tiled.walls);
+    reused.round = ParallelKruskalGenerator.LAST_ROUND - 1;
+    reused.generate(3);
+    t.checkExpect(reused.generate(11).walls, tiled.walls);
+    pool.shutdown();
+  }
+
+  // Is the given maze perfect: do its open sides join the playable cells
+  // into one tree, leaving the cells past the borders closed?
+  boolean isPerfect(MazeGrid maze) {
+    UnionFind cells = new UnionFind(maze.size());
+    int open = 0;
+    for (int i = 0; i < maze.size(); i++) {
+      for (int dir = MazeGrid.RIGHT; dir <= MazeGrid.DOWN; dir++) {
+        if (maze.canMove(i, dir)) {
+          open++;
+          if (!cells.union(i, maze.neighbor(i, dir))) {
+            return false;
+          }
+        }
+      }
+    }
+    return open == (maze.width - 1) * (maze.height - 1) - 1;
+  }
+
+  void testEllerGenerator(Tester t) throws IOException {
+    EllerGenerator eller = new EllerGenerator(37, 23);
+    GridSink grid = new GridSink();
+    eller.generate(5, grid);
+    t.checkExpect(this.isPerfect(grid.grid), true);
+    t.checkExpect(grid.grid.canMove(grid.grid.index(35, 4), MazeGrid.RIGHT), false);
+
+    File file = File.createTempFile("eller", ".bin");
+    file.deleteOnExit();
+    ChecksumSink checksum = new ChecksumSink();
+    eller.generate(5, new TeeSink(new MazeFileSink(file), checksum));
+    MazeFile loaded = MazeFile.load(file);
+    t.checkExpect(loaded.generator, "eller");
+    t.checkExpect(file.length(), (long) MazeFile.HEADER_BYTES + 8 * grid.grid.wordCount());
+    ChecksumSink again = new ChecksumSink();
+    again.start(37, 23, 5, "eller");
+    for (int i = 0; i < grid.grid.wordCount(); i++) {
+      t.checkExpect(loaded.grid.word(i), grid.grid.word(i));
+      again.word(grid.grid.word(i));
+    }
+    again.done();
+    t.checkExpect(again.value(), checksum.value());
+    // A maze that fails part way, here in a grid too small for it, still
+    // closes the file it was being written to
+    MazeFileSink failing = new MazeFileSink(file);
+    boolean failed = false;
+    try {
+      eller.generate(5, new TeeSink(failing, new GridSink(new MazeGrid(3, 3))));
+    } catch (IndexOutOfBoundsException e) {
+      failed = true;
+    }
+    t.checkExpect(failed, true);
+    t.checkExpect(failing.out.isOpen(), false);
+  }
+
+  void testCellSet(Tester t) {
+    CellSet cs = new CellSet(130);
+    t.checkExpect(cs.add(129), true);
+    t.checkExpect(cs.add(129), false);
+    t.checkExpect(cs.contains(129), true);
+    t.checkExpect(cs.contains(65), false);
+    cs.remove(129);
+    t.checkExpect(cs.contains(129), false);
+  }
+
+  void testMazeGridBits(Tester t) {
+    MazeGrid g = new MazeGrid(40, 3);
+    g.openAll();
+    t.checkExpect(g.walls.length, 4);
+    t.checkExpect(g.canMove(g.index(39, 1), MazeGrid.RIGHT), false);
+    t.checkExpect(g.canMove(g.index(5, 2), MazeGrid.DOWN), false);
+    t.checkExpect(g.canMove(g.index(0, 1), MazeGrid.LEFT), false);
+    t.checkExpect(g.canMove(g.index(5, 0), MazeGrid.UP), false);
+    g.setDown(g.index(31, 1), false);
+    t.checkExpect(g.canMove(g.index(31, 2), MazeGrid.UP), false);
+    t.checkExpect(g.canMove(g.index(32, 2), MazeGrid.UP), true);
+    t.checkExpect(g.neighbor(g.index(31, 1), MazeGrid.DOWN), g.index(31, 2));
+  }
+}
@@ -0,0 +1,64 @@
+import java.io.IOException;
+
+// Represents a sink that runs the rows together into the words MazeGrid and
+// MazeFile keep, where a row rarely starts at the start of a word
+abstract class PackedRowSink implements RowSink {
+  int width;
+  // The bits of the word being filled, and how many of them are filled
+  long pending;
+  int pendingBits;
+
+  /*-
+   * Fields:
+   * ... this.width ... -- int
+   * ... this.pending ... -- long
+   * ... this.pendingBits ... -- int
+   * Methods:
+   * ... this.start(int, int, long, String) ... -- void
+   * ... this.row(int, long[]) ... -- void
+   * ... this.finish() ... -- void
+   * ... this.word(long) ... -- void
+   * ... this.done() ... -- void
+   * ... this.close() ... -- void
+   */
+
+  public void start(int width, int height, long seed, String generator) throws IOException {
+    this.width = width;
+    this.pending = 0;
+    this.pendingBits = 0;
+  }
+
+  public void row(int y, long[] bits) throws IOException {
+    long rowBits = 2L * this.width;
+    for (int i = 0; i < bits.length; i++) {
+      int count = (int) Math.min(64, rowBits - 64L * i);
+      long w = bits[i];
+      this.pending |= w << this.pendingBits;
+      if (this.pendingBits + count >= 64) {
+        this.word(this.pending);
+        int used = 64 - this.pendingBits;
+        this.pending = used == 64 ? 0 : w >>> used;
+        this.pendingBits += count - 64;
+      } else {
+        this.pendingBits += count;
+      }
+    }
+  }
+
+  public void finish() throws IOException {
+    if (this.pendingBits > 0) {
+      this.word(this.pending);
+    }
+    this.done();
+  }
+
+  // EFFECT: Takes the next full word of the maze
+  abstract void word(long w) throws IOException;
+
+  // EFFECT: Finishes once the last word is taken
+  abstract void done() throws IOException;
+
+  public void close() throws IOException {
+    // Nothing is held open unless a sink says otherwise
+  }
+}
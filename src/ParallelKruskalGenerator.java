@@ -0,0 +1,466 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Makes mazes with Kruskal's algorithm on every core of a ForkJoinPool. The
+// vertices are split into square tiles, and each tile keeps only the edges
+// Kruskal's algorithm would pick among the edges inside it, all tiles at
+// once. No other edge inside a tile can be in the final tree, since it is the
+// heaviest edge of a cycle. The kept edges and the edges between tiles are
+// then joined into one tree by Boruvka's algorithm: every set of vertices
+// picks its lightest edge out at once, through a ConcurrentUnionFind, until
+// one set remains.
+//
+// Each edge's weight is hashed from the seed and the edge, and edges of the
+// same weight are taken in order of their encoding as in orderEdges, so the
+// maze is the one plain Kruskal's algorithm makes with the same weights,
+// whatever the tile size and however the threads are scheduled. The border
+// edges weigh least, so the border joins first, as in addBorders.
+class ParallelKruskalGenerator extends KruskalGenerator {
+  // Vertices across and down each tile
+  int tileSize;
+  ForkJoinPool pool;
+  long seed;
+  int tilesAcross;
+  int tilesDown;
+  // Room for the kept edges of each tile in candidates
+  int tileSlot;
+  // The edges that may still be in the tree, encoded like edgeOrder, and how
+  // many of them there are
+  int[] candidates;
+  int candidateCount;
+  // Edges kept by each tile, then edges left in each chunk after a round
+  int[] counts;
+  // The weight of every edge, by its encoding
+  byte[] weights;
+  // Sets of vertices already joined by the tree
+  ConcurrentUnionFind joined;
+  // The round in the high bits and the key of the lightest edge out of each
+  // set seen that round in the low bits, by the set's representative, so
+  // entries from earlier rounds never need clearing
+  AtomicLongArray lightest;
+  int round;
+  // The edges of the tree, and how many have been found
+  int[] tree;
+  AtomicInteger treeCount;
+  // Room for each thread to sort and join the edges inside a tile
+  ThreadLocal<TileWork> tileWork;
+
+  static final int TILE_SIZE = 256;
+  // Candidates handled by each task of a Boruvka round
+  static final int CHUNK = 1 << 13;
+  // Marks on candidates during a round
+  static final int DROPPED = -1;
+  static final int CHOSEN = 1 << 31;
+  // Bits of a lightest entry below the round, and the last round that fits
+  // above them
+  static final int ROUND_SHIFT = 40;
+  static final int LAST_ROUND = (1 << (63 - ROUND_SHIFT)) - 1;
+  // The passes of a Boruvka round
+  static final int OFFER = 0;
+  static final int CHOOSE = 1;
+  static final int JOIN = 2;
+  static final int KEEP = 3;
+
+  ParallelKruskalGenerator(int width, int height) {
+    this(width, height, TILE_SIZE, ForkJoinPool.commonPool());
+  }
+
+  ParallelKruskalGenerator(int width, int height, int tileSize, ForkJoinPool pool) {
+    super(width, height);
+    if (tileSize < 2) {
+      throw new IllegalArgumentException("Tiles need at least 2 x 2 vertices, given "
+          + tileSize);
+    }
+    this.tileSize = tileSize;
+    this.pool = pool;
+    int tileCells = Math.min(tileSize, width) * Math.min(tileSize, height);
+    this.tileWork = ThreadLocal.withInitial(() -> new TileWork(tileCells));
+  }
+
+  /*-
+   * Fields:
+   * ... this.tileSize ... -- int
+   * ... this.pool ... -- ForkJoinPool
+   * ... this.seed ... -- long
+   * ... this.tilesAcross ... -- int
+   * ... this.tilesDown ... -- int
+   * ... this.tileSlot ... -- int
+   * ... this.candidates ... -- int[]
+   * ... this.candidateCount ... -- int
+   * ... this.counts ... -- int[]
+   * ... this.weights ... -- byte[]
+   * ... this.joined ... -- ConcurrentUnionFind
+   * ... this.lightest ... -- AtomicLongArray
+   * ... this.round ... -- int
+   * ... this.tree ... -- int[]
+   * ... this.treeCount ... -- AtomicInteger
+   * ... this.tileWork ... -- ThreadLocal<TileWork>
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.generateInto(long, MazeGrid) ... -- MazeGrid
+   * ... this.weigh(int) ... -- byte
+   * ... this.key(int) ... -- long
+   * ... this.otherEnd(int) ... -- int
+   * ... this.keepTile(int) ... -- void
+   * ... this.runRounds() ... -- void
+   * ... this.runPass(int, int) ... -- void
+   * ... this.offer(int, int) ... -- void
+   */
+
+  public String name() {
+    return "kruskal-parallel";
+  }
+
+  // Returns the given grid with the maze made from the given seed in it. The
+  // working arrays are made with the first maze and kept for the next, which
+  // is the same size, so making mazes again allocates nothing in proportion
+  // to them. The tiles are timed as ordering the edges, and the rounds as
+  // building the walls.
+  public MazeGrid generateInto(long seed, MazeGrid grid) {
+    long before = System.nanoTime();
+    this.seed = seed;
+    this.grid = grid;
+    this.tilesAcross = (this.width + this.tileSize - 1) / this.tileSize;
+    this.tilesDown = (this.height + this.tileSize - 1) / this.tileSize;
+    int tiles = this.tilesAcross * this.tilesDown;
+    int across = Math.min(this.tileSize, this.width);
+    int down = Math.min(this.tileSize, this.height);
+    this.tileSlot = across * down + across + down;
+    if (this.candidates == null) {
+      int vertices = this.width * this.height;
+      this.candidates = new int[tiles * this.tileSlot];
+      this.weights = new byte[2 * vertices];
+      this.counts = new int[Math.max(tiles, this.candidates.length / CHUNK + 1)];
+      this.joined = new ConcurrentUnionFind(vertices);
+      this.lightest = new AtomicLongArray(vertices);
+      this.tree = new int[vertices];
+      this.treeCount = new AtomicInteger();
+    }
+    this.pool.invoke(new TileTask(this, 0, tiles));
+
+    this.candidateCount = 0;
+    for (int t = 0; t < tiles; t++) {
+      System.arraycopy(this.candidates, t * this.tileSlot, this.candidates, this.candidateCount,
+          this.counts[t]);
+      this.candidateCount += this.counts[t];
+    }
+    long ordered = System.nanoTime();
+    this.runRounds();
+
+    this.grid.openAll();
+    this.closeBorders();
+    for (int i = 0; i < this.treeCount.get(); i++) {
+      int from = this.tree[i] >>> 1;
+      this.addWall(from, this.otherEnd(this.tree[i]));
+    }
+    this.orderNanos = ordered - before;
+    this.wallsNanos = System.nanoTime() - ordered;
+    return this.grid;
+  }
+
+  // Returns the weight of the given edge, hashed from the seed by the
+  // SplitMix64 finalizer. Border edges weigh 0 and the others 1 to
+  // EDGE_WEIGHTS.
+  byte weigh(int code) {
+    int from = code >>> 1;
+    int x = from % this.width;
+    int y = from / this.width;
+    boolean border = (code & 1) == 0 ? y == 0 || y == this.height - 1
+        : x == 0 || x == this.width - 1;
+    if (border) {
+      return 0;
+    }
+    long z = this.seed + (code + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return (byte) (1 + Long.remainderUnsigned(z ^ (z >>> 31), EDGE_WEIGHTS));
+  }
+
+  // Returns the weight of the given edge in the high bits and the edge in the
+  // low bits, so no two keys are equal
+  long key(int code) {
+    return ((long) this.weights[code] << 32) | code;
+  }
+
+  // Returns the vertex at the far end of the given edge
+  int otherEnd(int code) {
+    int from = code >>> 1;
+    return (code & 1) == 0 ? from + 1 : from + this.width;
+  }
+
+  // EFFECT: Puts the edges Kruskal's algorithm picks inside the given tile,
+  // then the edges from it to the tiles to its right and below, in the
+  // tile's slot of candidates
+  void keepTile(int tile) {
+    int x0 = tile % this.tilesAcross * this.tileSize;
+    int y0 = tile / this.tilesAcross * this.tileSize;
+    int x1 = Math.min(x0 + this.tileSize, this.width);
+    int y1 = Math.min(y0 + this.tileSize, this.height);
+    int across = x1 - x0;
+    // The edges inside the tile, counted and then placed by weight like
+    // orderEdges does
+    TileWork work = this.tileWork.get();
+    int[] starts = work.starts;
+    Arrays.fill(starts, 0);
+    for (int y = y0; y < y1; y++) {
+      for (int x = x0; x < x1; x++) {
+        int v = this.grid.index(x, y);
+        if (x + 1 < this.width) {
+          this.weights[2 * v] = this.weigh(2 * v);
+          if (x + 1 < x1) {
+            starts[this.weights[2 * v] + 1]++;
+          }
+        }
+        if (y + 1 < this.height) {
+          this.weights[2 * v + 1] = this.weigh(2 * v + 1);
+          if (y + 1 < y1) {
+            starts[this.weights[2 * v + 1] + 1]++;
+          }
+        }
+      }
+    }
+    for (int w = 1; w < starts.length; w++) {
+      starts[w] += starts[w - 1];
+    }
+    int inside = starts[starts.length - 1];
+    int[] sorted = work.sorted;
+    for (int y = y0; y < y1; y++) {
+      for (int x = x0; x < x1; x++) {
+        int v = this.grid.index(x, y);
+        if (x + 1 < x1) {
+          sorted[starts[this.weights[2 * v]]++] = 2 * v;
+        }
+        if (y + 1 < y1) {
+          sorted[starts[this.weights[2 * v + 1]]++] = 2 * v + 1;
+        }
+      }
+    }
+
+    // The vertices of the tile, numbered from its top left corner
+    UnionFind local = work.local;
+    local.reset(across * (y1 - y0));
+    int out = tile * this.tileSlot;
+    int kept = 0;
+    for (int i = 0; i < inside && local.components > 1; i++) {
+      int code = sorted[i];
+      int from = code >>> 1;
+      int to = this.otherEnd(code);
+      int localFrom = (from / this.width - y0) * across + from % this.width - x0;
+      int localTo = (to / this.width - y0) * across + to % this.width - x0;
+      if (local.union(localFrom, localTo)) {
+        this.candidates[out + kept++] = code;
+      }
+    }
+    if (x1 < this.width) {
+      for (int y = y0; y < y1; y++) {
+        this.candidates[out + kept++] = 2 * this.grid.index(x1 - 1, y);
+      }
+    }
+    if (y1 < this.height) {
+      for (int x = x0; x < x1; x++) {
+        this.candidates[out + kept++] = 2 * this.grid.index(x, y1 - 1) + 1;
+      }
+    }
+    this.counts[tile] = kept;
+  }
+
+  // EFFECT: Runs rounds of Boruvka's algorithm over the candidates until
+  // none are left, filling tree. Rounds go on counting from the last maze,
+  // so its entries in lightest are never taken for this one's.
+  void runRounds() {
+    this.joined.reset();
+    this.treeCount.set(0);
+    this.edgesTried = 0;
+    while (this.candidateCount > 0) {
+      if (this.round == LAST_ROUND) {
+        for (int i = 0; i < this.lightest.length(); i++) {
+          this.lightest.set(i, 0);
+        }
+        this.round = 0;
+      }
+      this.round++;
+      this.edgesTried += this.candidateCount;
+      int chunks = (this.candidateCount + CHUNK - 1) / CHUNK;
+      this.pool.invoke(new BoruvkaPass(this, OFFER, 0, chunks));
+      this.pool.invoke(new BoruvkaPass(this, CHOOSE, 0, chunks));
+      this.pool.invoke(new BoruvkaPass(this, JOIN, 0, chunks));
+      this.pool.invoke(new BoruvkaPass(this, KEEP, 0, chunks));
+      this.candidateCount = 0;
+      for (int c = 0; c < chunks; c++) {
+        System.arraycopy(this.candidates, c * CHUNK, this.candidates, this.candidateCount,
+            this.counts[c]);
+        this.candidateCount += this.counts[c];
+      }
+    }
+  }
+
+  // EFFECT: Runs the given pass of a round over the given chunk of the
+  // candidates
+  void runPass(int pass, int chunk) {
+    int start = chunk * CHUNK;
+    int end = Math.min(start + CHUNK, this.candidateCount);
+    if (pass == KEEP) {
+      int chosen = 0;
+      for (int i = start; i < end; i++) {
+        if (this.candidates[i] != DROPPED && this.candidates[i] < 0) {
+          chosen++;
+        }
+      }
+      int next = this.treeCount.getAndAdd(chosen);
+      int kept = start;
+      for (int i = start; i < end; i++) {
+        int code = this.candidates[i];
+        if (code >= 0) {
+          this.candidates[kept++] = code;
+        } else if (code != DROPPED) {
+          this.tree[next++] = code & ~CHOSEN;
+        }
+      }
+      this.counts[chunk] = kept - start;
+      return;
+    }
+
+    for (int i = start; i < end; i++) {
+      int code = this.candidates[i];
+      if (code == DROPPED) {
+        continue;
+      }
+      if (pass == JOIN) {
+        if (code < 0) {
+          this.joined.union((code & ~CHOSEN) >>> 1, this.otherEnd(code & ~CHOSEN));
+        }
+        continue;
+      }
+      int from = this.joined.find(code >>> 1);
+      int to = this.joined.find(this.otherEnd(code));
+      if (pass == OFFER) {
+        if (from == to) {
+          this.candidates[i] = DROPPED;
+        } else {
+          this.offer(from, code);
+          this.offer(to, code);
+        }
+      } else {
+        long entry = ((long) this.round << ROUND_SHIFT) | this.key(code);
+        if (this.lightest.get(from) == entry || this.lightest.get(to) == entry) {
+          this.candidates[i] = code | CHOSEN;
+        }
+      }
+    }
+  }
+
+  // EFFECT: Makes the given edge the lightest out of the set with the given
+  // representative, unless a lighter one was already seen
+  void offer(int representative, int code) {
+    long entry = ((long) this.round << ROUND_SHIFT) | this.key(code);
+    while (true) {
+      long seen = this.lightest.get(representative);
+      if (seen >>> ROUND_SHIFT == this.round && seen <= entry) {
+        return;
+      }
+      if (this.lightest.compareAndSet(representative, seen, entry)) {
+        return;
+      }
+    }
+  }
+}
+
+// Represents keeping the edges of a range of tiles, splitting the range
+// between tasks until each has one tile
+class TileTask extends RecursiveAction {
+  ParallelKruskalGenerator generator;
+  int start;
+  int end;
+
+  static final long serialVersionUID = 1L;
+
+  TileTask(ParallelKruskalGenerator generator, int start, int end) {
+    this.generator = generator;
+    this.start = start;
+    this.end = end;
+  }
+
+  /*-
+   * Fields:
+   * ... this.generator ... -- ParallelKruskalGenerator
+   * ... this.start ... -- int
+   * ... this.end ... -- int
+   * Methods:
+   * ... this.compute() ... -- void
+   */
+
+  // EFFECT: Keeps the edges of every tile in the range
+  protected void compute() {
+    if (this.end - this.start == 1) {
+      this.generator.keepTile(this.start);
+    } else if (this.end > this.start) {
+      int middle = (this.start + this.end) >>> 1;
+      invokeAll(new TileTask(this.generator, this.start, middle),
+          new TileTask(this.generator, middle, this.end));
+    }
+  }
+}
+
+// Represents one pass of a Boruvka round over a range of chunks, splitting
+// the range between tasks until each has one chunk
+class BoruvkaPass extends RecursiveAction {
+  ParallelKruskalGenerator generator;
+  int pass;
+  int start;
+  int end;
+
+  static final long serialVersionUID = 1L;
+
+  BoruvkaPass(ParallelKruskalGenerator generator, int pass, int start, int end) {
+    this.generator = generator;
+    this.pass = pass;
+    this.start = start;
+    this.end = end;
+  }
+
+  /*-
+   * Fields:
+   * ... this.generator ... -- ParallelKruskalGenerator
+   * ... this.pass ... -- int
+   * ... this.start ... -- int
+   * ... this.end ... -- int
+   * Methods:
+   * ... this.compute() ... -- void
+   */
+
+  // EFFECT: Runs the pass over every chunk in the range
+  protected void compute() {
+    if (this.end - this.start == 1) {
+      this.generator.runPass(this.pass, this.start);
+    } else if (this.end > this.start) {
+      int middle = (this.start + this.end) >>> 1;
+      invokeAll(new BoruvkaPass(this.generator, this.pass, this.start, middle),
+          new BoruvkaPass(this.generator, this.pass, middle, this.end));
+    }
+  }
+}
+
+// Represents the room one thread needs to keep the edges of a tile: the
+// counts of each weight, the edges inside the tile sorted by weight, and the
+// sets of its vertices
+class TileWork {
+  int[] starts;
+  int[] sorted;
+  UnionFind local;
+
+  TileWork(int tileCells) {
+    this.starts = new int[KruskalGenerator.EDGE_WEIGHTS + 2];
+    this.sorted = new int[2 * tileCells];
+    this.local = new UnionFind(tileCells);
+  }
+
+  /*-
+   * Fields:
+   * ... this.starts ... -- int[]
+   * ... this.sorted ... -- int[]
+   * ... this.local ... -- UnionFind
+   */
+}
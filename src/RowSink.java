@@ -0,0 +1,20 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+// Represents where the rows of a maze go as they are made, from the top down
+interface RowSink extends Closeable {
+  // EFFECT: Gets ready for a maze of the given size in vertices, made from
+  // the given seed by the named generator
+  void start(int width, int height, long seed, String generator) throws IOException;
+
+  // EFFECT: Takes the given row of the maze, two bits per cell as in MazeGrid
+  // starting from bit 0 of the array. The array is reused for the next row.
+  void row(int y, long[] bits) throws IOException;
+
+  // EFFECT: Finishes the maze once its last row is taken
+  void finish() throws IOException;
+
+  // EFFECT: Lets go of whatever the sink holds open, such as a file, whether
+  // or not the maze was finished; closing it again does nothing
+  void close() throws IOException;
+}
@@ -0,0 +1,43 @@
+// Makes mazes with the Sidewinder algorithm, one row at a time from the top.
+// The top row is one corridor. In every other row, runs of cells are joined
+// left to right, and each run ends at random by opening upwards from one of
+// its cells chosen at random. No state is kept but the start of the current
+// run, so only Binary Tree is cheaper, but from every cell there is a way to
+// the top row that never goes down, and the top row is one long corridor.
+class SidewinderGenerator extends AGenerator {
+  SidewinderGenerator(int width, int height) {
+    super(width, height);
+  }
+
+  /*-
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.carve() ... -- void
+   */
+
+  public String name() {
+    return "sidewinder";
+  }
+
+  // EFFECT: Carves every row, joining runs across and each run upwards
+  void carve() {
+    int across = this.width - 1;
+    int down = this.height - 1;
+    for (int x = 0; x + 1 < across; x++) {
+      this.open(x, MazeGrid.RIGHT);
+    }
+    for (int y = 1; y < down; y++) {
+      int row = y * this.width;
+      int runStart = 0;
+      for (int x = 0; x < across; x++) {
+        if (x + 1 < across && this.rand.nextBoolean()) {
+          this.open(row + x, MazeGrid.RIGHT);
+        } else {
+          int up = runStart + this.rand.nextInt(x - runStart + 1);
+          this.open(row + up, MazeGrid.UP);
+          runStart = x + 1;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,169 @@
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+// Represents several solvers racing each other on one maze, each on a thread
+// of its own. The maze is only read, and every solver keeps its visited
+// cells, frontier and predecessors in arrays of its own, so they share
+// nothing but the grid. All the threads wait at a gate and start together,
+// and every solver is timed from the one moment the gate opens to when it is
+// done. Only the solving is timed: the cells each solver worked on are
+// marked, and a junction solver's corridors walked, once it is done. The
+// places and the winner, the fastest solver to find the target, all come from
+// those same times.
+class SolverRace {
+  MazeGrid grid;
+  MazeSolver[] solvers;
+  // The cells each solver worked on, and the cells of its solution
+  CellSet[] seen;
+  CellSet[] onPath;
+  // The cells each solver worked on, in order, while it was timed
+  IntDeque[] worked;
+  // When the gate opened, the wall time each solver took from then, and the
+  // order they finished in from 1
+  long start;
+  long[] nanos;
+  int[] place;
+  // The solver that found the target first, or -1 if none did
+  int winner;
+
+  SolverRace(MazeGrid grid, MazeSolver[] solvers, MazeStorage storage) {
+    this.grid = grid;
+    this.solvers = solvers;
+    int count = solvers.length;
+    this.seen = new CellSet[count];
+    this.onPath = new CellSet[count];
+    for (int i = 0; i < count; i++) {
+      this.seen[i] = storage.cells(grid.size());
+      this.onPath[i] = storage.cells(grid.size());
+    }
+    this.worked = new IntDeque[count];
+    for (int i = 0; i < count; i++) {
+      this.worked[i] = new IntDeque(64);
+    }
+    this.nanos = new long[count];
+    this.place = new int[count];
+    this.winner = -1;
+  }
+
+  /*-
+   * Fields:
+   * ... this.grid ... -- MazeGrid
+   * ... this.solvers ... -- MazeSolver[]
+   * ... this.seen ... -- CellSet[]
+   * ... this.onPath ... -- CellSet[]
+   * ... this.worked ... -- IntDeque[]
+   * ... this.start ... -- long
+   * ... this.nanos ... -- long[]
+   * ... this.place ... -- int[]
+   * ... this.winner ... -- int
+   * Methods:
+   * ... this.run() ... -- void
+   * ... this.runSolver(int, CountDownLatch) ... -- void
+   * ... this.record(int) ... -- void
+   * ... this.rank() ... -- void
+   * ... this.report() ... -- ArrayList<String>
+   */
+
+  // EFFECT: Runs every solver to the end on a thread of its own, all started
+  // at once, waits for them all, then records what each did and ranks them
+  void run() {
+    CountDownLatch gate = new CountDownLatch(1);
+    Thread[] threads = new Thread[this.solvers.length];
+    for (int i = 0; i < threads.length; i++) {
+      int solver = i;
+      threads[i] = new Thread(() -> this.runSolver(solver, gate),
+          "race-" + this.solvers[i].name());
+      threads[i].start();
+    }
+    // Opening the gate publishes the start time to every thread
+    this.start = System.nanoTime();
+    gate.countDown();
+    for (Thread thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted waiting for the race", e);
+      }
+    }
+    for (int i = 0; i < this.solvers.length; i++) {
+      this.record(i);
+    }
+    this.rank();
+  }
+
+  // EFFECT: Waits at the given gate, then runs the given solver to the end,
+  // keeping the cells it works on and its time since the gate opened. Each
+  // unit of work is expanded directly, without the timing of step and the
+  // corridors a junction solver walks to draw them.
+  void runSolver(int i, CountDownLatch gate) {
+    try {
+      gate.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    ASolver solver = (ASolver) this.solvers[i];
+    IntDeque worked = this.worked[i];
+    while (!solver.isDone()) {
+      int cell = solver.expand();
+      if (cell >= 0) {
+        worked.addLast(cell);
+      }
+    }
+    this.nanos[i] = System.nanoTime() - this.start;
+  }
+
+  // EFFECT: Marks the cells the given solver worked on, and for a junction
+  // solver the corridors it found from them, and the cells of its solution
+  void record(int i) {
+    MazeSolver solver = this.solvers[i];
+    IntDeque worked = this.worked[i];
+    IntDeque corridors = new IntDeque(64);
+    for (int w = 0; w < worked.size; w++) {
+      int cell = worked.get(w);
+      this.seen[i].add(cell);
+      if (solver instanceof JunctionSolver) {
+        corridors.clear();
+        ((JunctionSolver) solver).corridorsFrom(cell, corridors);
+        for (int c = 0; c < corridors.size; c++) {
+          this.seen[i].add(corridors.get(c));
+        }
+      }
+    }
+    for (int cell : solver.path()) {
+      this.onPath[i].add(cell);
+    }
+  }
+
+  // EFFECT: Gives every solver its place by its time, ties going to the one
+  // listed first, and makes the fastest one that found the target the winner
+  void rank() {
+    for (int i = 0; i < this.solvers.length; i++) {
+      this.place[i] = 1;
+      for (int j = 0; j < this.solvers.length; j++) {
+        if (this.nanos[j] < this.nanos[i] || (this.nanos[j] == this.nanos[i] && j < i)) {
+          this.place[i]++;
+        }
+      }
+      if (this.solvers[i].found()
+          && (this.winner < 0 || this.place[i] < this.place[this.winner])) {
+        this.winner = i;
+      }
+    }
+  }
+
+  // Returns the winner, then a line for each solver with its place, time and
+  // work
+  ArrayList<String> report() {
+    ArrayList<String> lines = new ArrayList<String>();
+    int first = this.winner;
+    lines.add("winner: " + (first < 0 ? "none" : this.solvers[first].name()));
+    for (int i = 0; i < this.solvers.length; i++) {
+      MazeSolver s = this.solvers[i];
+      lines.add(this.place[i] + ". " + s.name() + ": " + (this.nanos[i] / 1000) / 1000.0
+          + " ms, " + s.nodesExpanded() + " expanded, path " + s.path().length);
+    }
+    return lines;
+  }
+}
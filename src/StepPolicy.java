@@ -0,0 +1,90 @@
+// Represents how much solver work the world does on each tick: either a
+// fixed number of steps, or as many steps as fit in a time budget. An
+// adaptive budget is whatever is left of the tick once drawing the last
+// scenes is paid for, so the animation speeds up on faster machines without
+// dropping frames.
+class StepPolicy {
+  // Steps taken on each tick, if there is no time budget
+  int stepsPerTick;
+  // Time budget for each tick in nanoseconds, or 0 to take stepsPerTick steps
+  long budgetNanos;
+  // Length of a tick in nanoseconds, if the budget adapts to the scene cost
+  long tickNanos;
+  boolean adaptive;
+  // Moving average of the time makeScene takes, in nanoseconds
+  long sceneNanos;
+
+  // The time budget is only checked once every this many steps
+  static final int CHECK_EVERY = 64;
+  // Share of a tick an adaptive budget leaves for everything but the solver
+  static final double HEADROOM = 0.25;
+  // An adaptive budget never drops below this, so a solve always progresses
+  static final long MIN_BUDGET_NANOS = 1000000;
+
+  StepPolicy(int stepsPerTick, long budgetNanos, long tickNanos, boolean adaptive) {
+    this.stepsPerTick = stepsPerTick;
+    this.budgetNanos = budgetNanos;
+    this.tickNanos = tickNanos;
+    this.adaptive = adaptive;
+    this.sceneNanos = 0;
+  }
+
+  /*-
+   * Fields:
+   * ... this.stepsPerTick ... -- int
+   * ... this.budgetNanos ... -- long
+   * ... this.tickNanos ... -- long
+   * ... this.adaptive ... -- boolean
+   * ... this.sceneNanos ... -- long
+   * Methods:
+   * ... this.budget() ... -- long
+   * ... this.allows(int, long) ... -- boolean
+   * ... this.sceneBuilt(long) ... -- void
+   */
+
+  // Returns a policy taking the given number of steps every tick
+  static StepPolicy steps(int stepsPerTick) {
+    return new StepPolicy(stepsPerTick, 0, 0, false);
+  }
+
+  // Returns a policy spending up to the given number of milliseconds per tick
+  static StepPolicy millis(double millis) {
+    return new StepPolicy(0, (long) (millis * 1000000), 0, false);
+  }
+
+  // Returns a policy spending what is left of each tick, of the given length
+  // in seconds, after drawing the scene
+  static StepPolicy adaptive(double tickSeconds) {
+    long tick = (long) (tickSeconds * 1000000000);
+    return new StepPolicy(0, tick, tick, true);
+  }
+
+  // Returns the time budget for the next tick in nanoseconds, or 0 if this
+  // policy counts steps instead
+  long budget() {
+    if (this.adaptive) {
+      long left = (long) (this.tickNanos * (1 - HEADROOM)) - this.sceneNanos;
+      this.budgetNanos = Math.max(MIN_BUDGET_NANOS, left);
+    }
+    return this.budgetNanos;
+  }
+
+  // Can the tick that has taken the given number of steps so far, and must
+  // end by the given System.nanoTime, take another one? The first step of a
+  // tick is always allowed.
+  boolean allows(int steps, long deadline) {
+    if (this.budgetNanos == 0) {
+      return steps < this.stepsPerTick;
+    }
+    return steps % CHECK_EVERY != 0 || steps == 0 || System.nanoTime() < deadline;
+  }
+
+  // EFFECT: Folds the time the last scene took into the moving average
+  void sceneBuilt(long nanos) {
+    if (this.sceneNanos == 0) {
+      this.sceneNanos = nanos;
+    } else {
+      this.sceneNanos += (nanos - this.sceneNanos) / 8;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+// Represents disjoint sets whose parents and ranks are kept by a MazeStorage,
+// so big mazes can keep them off the heap
+class StoreUnionFind extends UnionFind {
+  IntStore parents;
+  IntStore ranks;
+
+  StoreUnionFind(int size, MazeStorage storage) {
+    // The arrays of UnionFind are left out, since every method that touches
+    // them is replaced here
+    super(0);
+    this.parent = null;
+    this.rank = null;
+    this.parents = storage.ints(size);
+    this.ranks = storage.ints(size);
+    this.reset();
+  }
+
+  /*-
+   * Fields:
+   * ... this.parents ... -- IntStore
+   * ... this.ranks ... -- IntStore
+   * Methods:
+   * ... this.reset() ... -- void
+   * ... this.reset(int) ... -- void
+   * ... this.find(int) ... -- int
+   * ... this.union(int, int) ... -- boolean
+   */
+
+  // EFFECT: Puts every index back into a set of its own
+  @Override
+  void reset() {
+    this.reset(this.parents.length);
+  }
+
+  // EFFECT: Puts the first size indices back into sets of their own
+  @Override
+  void reset(int size) {
+    for (int i = 0; i < size; i++) {
+      this.parents.set(i, i);
+      this.ranks.set(i, 0);
+    }
+    this.components = size;
+  }
+
+  // Returns the representative of the given index
+  // EFFECT: Points every index on the way directly at the representative
+  @Override
+  int find(int i) {
+    int root = i;
+    while (this.parents.get(root) != root) {
+      root = this.parents.get(root);
+    }
+    while (this.parents.get(i) != root) {
+      int next = this.parents.get(i);
+      this.parents.set(i, root);
+      i = next;
+    }
+    return root;
+  }
+
+  // Returns true if the two indices were in different sets
+  // EFFECT: Joins the sets of the two indices, as UnionFind does
+  @Override
+  boolean union(int i, int j) {
+    int ri = this.find(i);
+    int rj = this.find(j);
+    if (ri == rj) {
+      return false;
+    }
+    int rankI = this.ranks.get(ri);
+    int rankJ = this.ranks.get(rj);
+    if (rankI > rankJ) {
+      this.parents.set(rj, ri);
+    } else {
+      this.parents.set(ri, rj);
+      if (rankI == rankJ) {
+        this.ranks.set(rj, rankJ + 1);
+      }
+    }
+    this.components--;
+    return true;
+  }
+}
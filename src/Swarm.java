@@ -0,0 +1,215 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Represents many agents exploring one maze at once, for load testing. The
+// maze is only read, so every thread shares it; each agent is a cell, the
+// direction it last moved in and the state of its own random numbers, kept
+// in arrays by agent number. On each tick the agents are split into batches
+// that step on every core of a ForkJoinPool.
+//
+// An agent never turns back unless it reaches a dead end, and at a junction
+// takes one of the other ways at random. An agent that reaches the target
+// counts an arrival and starts again from the start.
+class Swarm {
+  MazeGrid grid;
+  int start;
+  int target;
+  ForkJoinPool pool;
+  // The cell, last direction and random state of each agent
+  int[] cell;
+  byte[] heading;
+  long[] random;
+  // Arrivals made by each batch in the last tick, so no two threads add to
+  // the same count
+  long[] batchArrivals;
+  // Totals since the swarm started
+  long arrivals;
+  long agentSteps;
+  long nanos;
+
+  // Agents stepped together by one task
+  static final int BATCH = 4096;
+
+  Swarm(MazeGrid grid, int start, int target, int agents, long seed, ForkJoinPool pool) {
+    if (agents < 1) {
+      throw new IllegalArgumentException("A swarm needs at least one agent, given " + agents);
+    }
+    this.grid = grid;
+    this.start = start;
+    this.target = target;
+    this.pool = pool;
+    this.cell = new int[agents];
+    this.heading = new byte[agents];
+    this.random = new long[agents];
+    this.batchArrivals = new long[(agents + BATCH - 1) / BATCH];
+    for (int a = 0; a < agents; a++) {
+      this.cell[a] = start;
+      this.heading[a] = MazeGrid.RIGHT;
+      // The random state must never be zero
+      this.random[a] = MazeBatch.mazeSeed(seed, a) | 1;
+    }
+  }
+
+  /*-
+   * Fields:
+   * ... this.grid ... -- MazeGrid
+   * ... this.start ... -- int
+   * ... this.target ... -- int
+   * ... this.pool ... -- ForkJoinPool
+   * ... this.cell ... -- int[]
+   * ... this.heading ... -- byte[]
+   * ... this.random ... -- long[]
+   * ... this.batchArrivals ... -- long[]
+   * ... this.arrivals ... -- long
+   * ... this.agentSteps ... -- long
+   * ... this.nanos ... -- long
+   * Methods:
+   * ... this.size() ... -- int
+   * ... this.tick(int) ... -- void
+   * ... this.stepBatch(int, int) ... -- void
+   * ... this.stepsPerSecond() ... -- double
+   * ... this.report() ... -- String
+   * ... Swarm.main(String[]) ... -- void
+   */
+
+  // Returns the number of agents
+  int size() {
+    return this.cell.length;
+  }
+
+  // EFFECT: Moves every agent the given number of steps, in batches on the
+  // pool
+  void tick(int steps) {
+    long before = System.nanoTime();
+    this.pool.invoke(new SwarmTask(this, steps, 0, this.batchArrivals.length));
+    for (int b = 0; b < this.batchArrivals.length; b++) {
+      this.arrivals += this.batchArrivals[b];
+    }
+    this.agentSteps += (long) steps * this.size();
+    this.nanos += System.nanoTime() - before;
+  }
+
+  // EFFECT: Moves the agents of the given batch the given number of steps,
+  // counting the batch's arrivals
+  void stepBatch(int batch, int steps) {
+    MazeGrid grid = this.grid;
+    int[] cell = this.cell;
+    byte[] heading = this.heading;
+    long[] random = this.random;
+    long arrived = 0;
+    int end = Math.min(cell.length, (batch + 1) * BATCH);
+    for (int a = batch * BATCH; a < end; a++) {
+      int at = cell[a];
+      int dir = heading[a];
+      long r = random[a];
+      for (int s = 0; s < steps; s++) {
+        // Choose at random among the open ways on, by xorshift
+        int back = (dir + 2) & 3;
+        int ways = 0;
+        int choices = 0;
+        for (int d = 0; d < 4; d++) {
+          if (d != back && grid.canMove(at, d)) {
+            ways |= 1 << d;
+            choices++;
+          }
+        }
+        if (choices == 0) {
+          dir = back;
+        } else {
+          r ^= r << 13;
+          r ^= r >>> 7;
+          r ^= r << 17;
+          int pick = (int) ((r >>> 32) * choices >>> 32);
+          for (; pick > 0; pick--) {
+            ways &= ways - 1;
+          }
+          dir = Integer.numberOfTrailingZeros(ways);
+        }
+        at = grid.neighbor(at, dir);
+        if (at == this.target) {
+          arrived++;
+          at = this.start;
+          dir = MazeGrid.RIGHT;
+        }
+      }
+      cell[a] = at;
+      heading[a] = (byte) dir;
+      random[a] = r;
+    }
+    this.batchArrivals[batch] = arrived;
+  }
+
+  // Returns the agent steps taken per second of stepping so far
+  double stepsPerSecond() {
+    return this.nanos == 0 ? 0 : this.agentSteps / (this.nanos / 1e9);
+  }
+
+  // Returns a line describing the work the swarm has done
+  String report() {
+    return String.format("%d agents: %d steps, %d arrivals, %.3g agent-steps/s", this.size(),
+        this.agentSteps, this.arrivals, this.stepsPerSecond());
+  }
+
+  // EFFECT: Runs a swarm on a new maze as given on the command line,
+  // printing its throughput after every tick
+  //
+  //   java Swarm width height agents ticks steps [threads]
+  public static void main(String[] args) {
+    if (args.length < 5 || args.length > 6) {
+      System.err.println("usage: java Swarm width height agents ticks steps [threads]");
+      System.exit(2);
+    }
+    int width = Integer.parseInt(args[0]);
+    int height = Integer.parseInt(args[1]);
+    ForkJoinPool pool = args.length == 6 ? new ForkJoinPool(Integer.parseInt(args[5]))
+        : ForkJoinPool.commonPool();
+    MazeGrid grid = MazeWorld.generatorFor(width, height).generate(1);
+    Swarm swarm = new Swarm(grid, 0, grid.index(width - 2, height - 2),
+        Integer.parseInt(args[2]), 1, pool);
+    int ticks = Integer.parseInt(args[3]);
+    int steps = Integer.parseInt(args[4]);
+    for (int i = 0; i < ticks; i++) {
+      swarm.tick(steps);
+      System.out.println("tick " + i + ": " + swarm.report());
+    }
+  }
+}
+
+// Represents stepping a range of batches of a swarm, splitting the range
+// between tasks until each has one batch
+class SwarmTask extends RecursiveAction {
+  Swarm swarm;
+  int steps;
+  int start;
+  int end;
+
+  static final long serialVersionUID = 1L;
+
+  SwarmTask(Swarm swarm, int steps, int start, int end) {
+    this.swarm = swarm;
+    this.steps = steps;
+    this.start = start;
+    this.end = end;
+  }
+
+  /*-
+   * Fields:
+   * ... this.swarm ... -- Swarm
+   * ... this.steps ... -- int
+   * ... this.start ... -- int
+   * ... this.end ... -- int
+   * Methods:
+   * ... this.compute() ... -- void
+   */
+
+  // EFFECT: Steps every batch in the range
+  protected void compute() {
+    if (this.end - this.start == 1) {
+      this.swarm.stepBatch(this.start, this.steps);
+    } else if (this.end > this.start) {
+      int middle = (this.start + this.end) >>> 1;
+      invokeAll(new SwarmTask(this.swarm, this.steps, this.start, middle),
+          new SwarmTask(this.swarm, this.steps, middle, this.end));
+    }
+  }
+}
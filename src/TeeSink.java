@@ -0,0 +1,47 @@
+import java.io.IOException;
+
+// Represents handing every row to two sinks
+class TeeSink implements RowSink {
+  RowSink first;
+  RowSink second;
+
+  TeeSink(RowSink first, RowSink second) {
+    this.first = first;
+    this.second = second;
+  }
+
+  /*-
+   * Fields:
+   * ... this.first ... -- RowSink
+   * ... this.second ... -- RowSink
+   * Methods:
+   * ... this.start(int, int, long, String) ... -- void
+   * ... this.row(int, long[]) ... -- void
+   * ... this.finish() ... -- void
+   * ... this.close() ... -- void
+   */
+
+  public void start(int width, int height, long seed, String generator) throws IOException {
+    this.first.start(width, height, seed, generator);
+    this.second.start(width, height, seed, generator);
+  }
+
+  public void row(int y, long[] bits) throws IOException {
+    this.first.row(y, bits);
+    this.second.row(y, bits);
+  }
+
+  public void finish() throws IOException {
+    this.first.finish();
+    this.second.finish();
+  }
+
+  // EFFECT: Closes both sinks, the second even if closing the first fails
+  public void close() throws IOException {
+    try {
+      this.first.close();
+    } finally {
+      this.second.close();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+// Represents disjoint sets of cells, where each cell is known by its index
+// (y * mazeWidth + x)
+class UnionFind {
+  // The parent of each index; an index that is its own parent is a representative
+  int[] parent;
+  // Upper bound on the height of the tree under each representative
+  int[] rank;
+  // How many disjoint sets remain
+  int components;
+
+  UnionFind(int size) {
+    this.parent = new int[size];
+    this.rank = new int[size];
+    // Not reset(), which StoreUnionFind replaces with one over its own stores
+    for (int i = 0; i < size; i++) {
+      this.parent[i] = i;
+    }
+    this.components = size;
+  }
+
+  /*-
+   * Fields:
+   * ... this.parent ... -- int[]
+   * ... this.rank ... -- int[]
+   * ... this.components ... -- int
+   * Methods:
+   * ... this.reset() ... -- void
+   * ... this.reset(int) ... -- void
+   * ... this.find(int) ... -- int
+   * ... this.union(int, int) ... -- boolean
+   */
+
+  // EFFECT: Puts every index back into a set of its own
+  void reset() {
+    this.reset(this.parent.length);
+  }
+
+  // EFFECT: Puts the first size indices back into sets of their own, so the
+  // sets are used as sets of only that many indices
+  void reset(int size) {
+    for (int i = 0; i < size; i++) {
+      this.parent[i] = i;
+      this.rank[i] = 0;
+    }
+    this.components = size;
+  }
+
+  // Returns the representative of the given index
+  // EFFECT: Points every index on the way directly at the representative
+  int find(int i) {
+    int root = i;
+    while (this.parent[root] != root) {
+      root = this.parent[root];
+    }
+    while (this.parent[i] != root) {
+      int next = this.parent[i];
+      this.parent[i] = root;
+      i = next;
+    }
+    return root;
+  }
+
+  // Returns true if the two indices were in different sets
+  // EFFECT: Joins the sets of the two indices, hanging the lower ranked
+  // representative under the other. On a tie i's representative goes under j's.
+  boolean union(int i, int j) {
+    int ri = this.find(i);
+    int rj = this.find(j);
+    if (ri == rj) {
+      return false;
+    }
+    if (this.rank[ri] > this.rank[rj]) {
+      this.parent[rj] = ri;
+    } else {
+      this.parent[ri] = rj;
+      if (this.rank[ri] == this.rank[rj]) {
+        this.rank[rj]++;
+      }
+    }
+    this.components--;
+    return true;
+  }
+}
@@ -0,0 +1,75 @@
+// Makes mazes with Wilson's algorithm: starting from a tree of one random
+// cell, a random walk from each cell not in the tree yet runs until it hits
+// the tree, and the walk with its loops erased joins the tree. Loops are
+// erased by remembering only the last direction the walk left each cell in,
+// so retracing the walk from its start follows the loop-free path. Every
+// spanning tree of the cells is equally likely, so unlike Kruskal's or the
+// backtracker the mazes have no bias, at the cost of the long first walks
+// while the tree is small.
+class WilsonGenerator extends AGenerator {
+  CellSet inTree;
+  // The direction the current walk last left each cell in
+  byte[] leftBy;
+
+  WilsonGenerator(int width, int height) {
+    super(width, height);
+  }
+
+  /*-
+   * Fields:
+   * ... this.inTree ... -- CellSet
+   * ... this.leftBy ... -- byte[]
+   * Methods:
+   * ... this.name() ... -- String
+   * ... this.carve() ... -- void
+   * ... this.walk(int) ... -- void
+   */
+
+  public String name() {
+    return "wilson";
+  }
+
+  // EFFECT: Grows the tree from a random cell until it holds every playable
+  // cell
+  void carve() {
+    int size = this.grid.size();
+    if (this.leftBy == null || this.leftBy.length != size) {
+      this.leftBy = new byte[size];
+      this.inTree = new CellSet(size);
+    } else {
+      this.inTree.clear();
+    }
+    int across = this.width - 1;
+    int down = this.height - 1;
+    int root = this.rand.nextInt(across) + this.rand.nextInt(down) * this.width;
+    this.inTree.add(root);
+    for (int y = 0; y < down; y++) {
+      for (int x = 0; x < across; x++) {
+        int cell = y * this.width + x;
+        if (!this.inTree.contains(cell)) {
+          this.walk(cell);
+        }
+      }
+    }
+  }
+
+  // EFFECT: Walks at random from the given cell until the walk hits the
+  // tree, then adds the walk, with its loops erased, to the tree
+  void walk(int start) {
+    int cell = start;
+    while (!this.inTree.contains(cell)) {
+      int dir = this.rand.nextInt(4);
+      while (!this.inside(cell, dir)) {
+        dir = this.rand.nextInt(4);
+      }
+      this.leftBy[cell] = (byte) dir;
+      cell = this.grid.neighbor(cell, dir);
+    }
+    for (cell = start; !this.inTree.contains(cell);) {
+      int dir = this.leftBy[cell];
+      this.open(cell, dir);
+      this.inTree.add(cell);
+      cell = this.grid.neighbor(cell, dir);
+    }
+  }
+}